@@ -37,6 +37,19 @@ public class ClientScriptModule extends AbstractScriptModule {
         return rpc.getUncommitedChanges(projectName, userName);
     }
 
+    @Override
+    protected ChangesPage getUncommitedChangesPageImpl(String projectName, String userName, long version,
+                                                       int offset, int limit, String typeFilter,
+                                                       String pathPrefix, String actorFilter) {
+        return rpc.getUncommitedChangesPage(projectName, userName, version, offset, limit,
+                typeFilter, pathPrefix, actorFilter);
+    }
+
+    @Override
+    protected ChangesDelta getUncommitedChangesSinceImpl(String projectName, String userName, long version) {
+        return rpc.getUncommitedChangesSince(projectName, userName, version);
+    }
+
     @Override
     protected boolean isRegisteredUserImpl(String projectName, String userName){
         return rpc.isRegisteredUser(projectName, userName);
@@ -155,6 +168,32 @@ public class ClientScriptModule extends AbstractScriptModule {
         return rpc.revertCommit(projectName, commitHash);
     }
 
+    @Override
+    protected boolean deployCommitImpl(String projectName, String commitHash) throws Exception {
+        return rpc.deployCommit(projectName, commitHash);
+    }
+
+    @Override
+    protected ImportPlan planImportImpl(String projectName, String revision) throws Exception {
+        return rpc.planImport(projectName, revision);
+    }
+
+    @Override
+    protected String pullAsyncImpl(String projectName, String userName, String remoteName, boolean importTags,
+                                   boolean importTheme, boolean importImages) {
+        return rpc.pullAsync(projectName, userName, remoteName, importTags, importTheme, importImages);
+    }
+
+    @Override
+    protected GitJobStatus getJobStatusImpl(String jobId) {
+        return rpc.getJobStatus(jobId);
+    }
+
+    @Override
+    protected boolean cancelJobImpl(String jobId) {
+        return rpc.cancelJob(jobId);
+    }
+
     @Override
     protected boolean initializeLocalProjectImpl(String projectName, String ignitionUser,
                                                   String email) throws Exception {
@@ -56,6 +56,27 @@ public abstract class AbstractScriptModule implements GitScriptInterface {
         return getUncommitedChangesImpl(projectName, userName);
     }
 
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public ChangesPage getUncommitedChangesPage(@ScriptArg("projectName") String projectName,
+                                                @ScriptArg("userName") String userName,
+                                                @ScriptArg("version") long version,
+                                                @ScriptArg("offset") int offset,
+                                                @ScriptArg("limit") int limit,
+                                                @ScriptArg("typeFilter") String typeFilter,
+                                                @ScriptArg("pathPrefix") String pathPrefix,
+                                                @ScriptArg("actorFilter") String actorFilter) {
+        return getUncommitedChangesPageImpl(projectName, userName, version, offset, limit, typeFilter, pathPrefix, actorFilter);
+    }
+
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public ChangesDelta getUncommitedChangesSince(@ScriptArg("projectName") String projectName,
+                                                  @ScriptArg("userName") String userName,
+                                                  @ScriptArg("version") long version) {
+        return getUncommitedChangesSinceImpl(projectName, userName, version);
+    }
+
     @Override
     @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
     public boolean isRegisteredUser(@ScriptArg("projectName") String projectName,
@@ -213,6 +234,10 @@ public abstract class AbstractScriptModule implements GitScriptInterface {
     protected abstract boolean pushImpl(String projectName, String userName, String remoteName, boolean pushAllBranches, boolean pushTags, boolean forcePush) throws Exception;
     protected abstract boolean commitImpl(String projectName, String userName, List<String> changes, String message, boolean amend);
     protected abstract Dataset getUncommitedChangesImpl(String projectName, String userName);
+    protected abstract ChangesPage getUncommitedChangesPageImpl(String projectName, String userName, long version,
+                                                                int offset, int limit, String typeFilter,
+                                                                String pathPrefix, String actorFilter);
+    protected abstract ChangesDelta getUncommitedChangesSinceImpl(String projectName, String userName, long version);
     protected abstract boolean isRegisteredUserImpl(String projectName, String userName);
     protected abstract boolean exportConfigImpl(String projectName);
     protected abstract void setupLocalRepoImpl(String projectName, String userName) throws Exception;
@@ -256,6 +281,52 @@ public abstract class AbstractScriptModule implements GitScriptInterface {
 
     protected abstract boolean revertCommitImpl(String projectName, String commitHash) throws Exception;
 
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public boolean deployCommit(@ScriptArg("projectName") String projectName,
+                                @ScriptArg("commitHash") String commitHash) throws Exception {
+        return deployCommitImpl(projectName, commitHash);
+    }
+
+    protected abstract boolean deployCommitImpl(String projectName, String commitHash) throws Exception;
+
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public ImportPlan planImport(@ScriptArg("projectName") String projectName,
+                                 @ScriptArg("revision") String revision) throws Exception {
+        return planImportImpl(projectName, revision);
+    }
+
+    protected abstract ImportPlan planImportImpl(String projectName, String revision) throws Exception;
+
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public String pullAsync(@ScriptArg("projectName") String projectName,
+                            @ScriptArg("userName") String userName,
+                            @ScriptArg("remoteName") String remoteName,
+                            @ScriptArg("importTags") boolean importTags,
+                            @ScriptArg("importTheme") boolean importTheme,
+                            @ScriptArg("importImages") boolean importImages) {
+        return pullAsyncImpl(projectName, userName, remoteName, importTags, importTheme, importImages);
+    }
+
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public GitJobStatus getJobStatus(@ScriptArg("jobId") String jobId) {
+        return getJobStatusImpl(jobId);
+    }
+
+    @Override
+    @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
+    public boolean cancelJob(@ScriptArg("jobId") String jobId) {
+        return cancelJobImpl(jobId);
+    }
+
+    protected abstract String pullAsyncImpl(String projectName, String userName, String remoteName, boolean importTags,
+                                            boolean importTheme, boolean importImages);
+    protected abstract GitJobStatus getJobStatusImpl(String jobId);
+    protected abstract boolean cancelJobImpl(String jobId);
+
     @Override
     @ScriptFunction(docBundlePrefix = "AbstractScriptModule")
     public boolean initializeLocalProject(@ScriptArg("projectName") String projectName,
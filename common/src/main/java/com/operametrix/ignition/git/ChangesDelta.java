@@ -0,0 +1,48 @@
+package com.operametrix.ignition.git;
+
+import com.inductiveautomation.ignition.common.Dataset;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Difference between two versions of a project's uncommitted changes, returned by
+ * {@link GitScriptInterface#getUncommitedChangesSince(String, String, long)}.
+ * <p>
+ * When {@link #isFull()} is true the requested version is no longer known by the gateway and the
+ * caller must reload the whole change set; {@link #getRows()} and {@link #getRemoved()} are empty.
+ */
+public class ChangesDelta implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final boolean full;
+    private final Dataset rows;
+    private final List<String> removed;
+
+    public ChangesDelta(long version, boolean full, Dataset rows, List<String> removed) {
+        this.version = version;
+        this.full = full;
+        this.rows = rows;
+        this.removed = removed;
+    }
+
+    /** Version of the change set this delta leads to. */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    /** Added or updated rows, sorted by resource, with columns: resource, type, actor, timestamp. */
+    public Dataset getRows() {
+        return rows;
+    }
+
+    /** Resources that are no longer changed. */
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
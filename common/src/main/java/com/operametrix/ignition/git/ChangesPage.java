@@ -0,0 +1,42 @@
+package com.operametrix.ignition.git;
+
+import com.inductiveautomation.ignition.common.Dataset;
+
+import java.io.Serializable;
+
+/**
+ * One page of a project's uncommitted changes, returned by
+ * {@link GitScriptInterface#getUncommitedChangesPage}.
+ * <p>
+ * Every page and count comes from the change set of {@link #getVersion()}. Requesting the next pages
+ * with that version keeps them consistent with the first one; when the gateway no longer holds the
+ * version, the page of the latest version is returned instead and the caller must start over.
+ */
+public class ChangesPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long version;
+    private final int totalCount;
+    private final Dataset rows;
+
+    public ChangesPage(long version, int totalCount, Dataset rows) {
+        this.version = version;
+        this.totalCount = totalCount;
+        this.rows = rows;
+    }
+
+    /** Version of the change set the page was read from, as used by {@link ChangesDelta}. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Number of changes matching the filters in this version. */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /** Rows of the page, sorted by resource, with columns: resource, type, actor, timestamp. */
+    public Dataset getRows() {
+        return rows;
+    }
+}
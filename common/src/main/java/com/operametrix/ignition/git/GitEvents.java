@@ -0,0 +1,21 @@
+package com.operametrix.ignition.git;
+
+/**
+ * Push notifications sent by the gateway to Designers when a project's repository changes.
+ * The notification type is one of the constants below and the message is the project name.
+ */
+public final class GitEvents {
+    public static final String MODULE_ID = "com.operametrix.ignition.git";
+
+    /** Working-tree status changed: uncommitted changes should be refreshed. */
+    public static final String STATUS_CHANGED = "git.statusChanged";
+
+    /** The checked out branch or the list of branches changed. */
+    public static final String BRANCH_CHANGED = "git.branchChanged";
+
+    /** Commits or refs changed (commit, pull, push, revert). */
+    public static final String NEW_COMMIT = "git.newCommit";
+
+    private GitEvents() {
+    }
+}
@@ -0,0 +1,98 @@
+package com.operametrix.ignition.git;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of a Git job running on the gateway, returned by
+ * {@link GitScriptInterface#getJobStatus(String)}.
+ */
+public class GitJobStatus implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String QUEUED = "Queued";
+    public static final String RUNNING = "Running";
+    public static final String DONE = "Done";
+    public static final String FAILED = "Failed";
+    public static final String CANCELLED = "Cancelled";
+
+    private final String jobId;
+    private final String projectName;
+    private final String operation;
+    private final String state;
+    private final String phase;
+    private final long resourcesProcessed;
+    private final long bytesProcessed;
+    private final String message;
+    private final long startedAt;
+    private final long finishedAt;
+
+    public GitJobStatus(String jobId, String projectName, String operation, String state, String phase,
+                        long resourcesProcessed, long bytesProcessed, String message, long startedAt, long finishedAt) {
+        this.jobId = jobId;
+        this.projectName = projectName;
+        this.operation = operation;
+        this.state = state;
+        this.phase = phase;
+        this.resourcesProcessed = resourcesProcessed;
+        this.bytesProcessed = bytesProcessed;
+        this.message = message;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    /** Name of the operation, e.g. {@code "pull"}. */
+    public String getOperation() {
+        return operation;
+    }
+
+    /** One of {@link #QUEUED}, {@link #RUNNING}, {@link #DONE}, {@link #FAILED}, {@link #CANCELLED}. */
+    public String getState() {
+        return state;
+    }
+
+    /** Step currently executed, e.g. "Importing project". */
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getResourcesProcessed() {
+        return resourcesProcessed;
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    /** Error message of a failed job, null otherwise. */
+    public String getMessage() {
+        return message;
+    }
+
+    /** Start time of the job, once it left the project queue; 0 while it is queued or if it was cancelled before it started. */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /** End time of the job, 0 while it is queued or running. */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        return DONE.equals(state) || FAILED.equals(state) || CANCELLED.equals(state);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GitJobStatus{jobId=%s, operation=%s, state=%s, phase=%s, resources=%d, bytes=%d}",
+                jobId, operation, state, phase, resourcesProcessed, bytesProcessed);
+    }
+}
@@ -11,6 +11,17 @@ public interface GitScriptInterface {
     boolean push(String projectName, String userName, String remoteName, boolean pushAllBranches, boolean pushTags, boolean forcePush) throws Exception;
     boolean commit(String projectName, String userName, List<String> changes, String message, boolean amend);
     Dataset getUncommitedChanges(String projectName, String userName);
+
+    /** Get one page of the uncommitted changes, sorted by resource path, with the number of matching
+     *  changes. Empty filters are ignored. Pass 0 as version for the latest changes, then the version
+     *  of the first page to read the next pages from the same change set. */
+    ChangesPage getUncommitedChangesPage(String projectName, String userName, long version, int offset, int limit,
+                                         String typeFilter, String pathPrefix, String actorFilter);
+
+    /** Get the rows added, updated and removed from the uncommitted changes since the given version.
+     *  An unknown version, such as 0, returns a full delta: the current version with no rows, the
+     *  whole change set must then be reloaded. */
+    ChangesDelta getUncommitedChangesSince(String projectName, String userName, long version);
     boolean isRegisteredUser(String projectName, String userName);
     boolean exportConfig(String projectName);
     void setupLocalRepo(String projectName, String userName) throws Exception;
@@ -86,6 +97,36 @@ public interface GitScriptInterface {
     /** Create a new commit that reverses the changes of the specified commit (git revert). */
     boolean revertCommit(String projectName, String commitHash) throws Exception;
 
+    /**
+     * Replace the gateway project resources with the content of a commit, read directly from the
+     * repository. HEAD does not move: the gateway saves the resources into the working tree, where
+     * the differences with HEAD show up as uncommitted changes. Tags, themes and images are not
+     * deployed. Refused while project resources have uncommitted changes.
+     */
+    boolean deployCommit(String projectName, String commitHash) throws Exception;
+
+    /**
+     * Report what importing a revision would change in the gateway project (added, changed and
+     * removed resources, bytes to load, estimated duration), without importing anything.
+     */
+    ImportPlan planImport(String projectName, String revision) throws Exception;
+
+    /**
+     * Start a pull and the imports that follow it as a job on the gateway, and return its id
+     * immediately. Progress is read with {@link #getJobStatus(String)}.
+     */
+    String pullAsync(String projectName, String userName, String remoteName, boolean importTags, boolean importTheme,
+                     boolean importImages);
+
+    /** Current status of a job, or null if the job is unknown or expired. */
+    GitJobStatus getJobStatus(String jobId);
+
+    /**
+     * Request the cancellation of a job. A pull stops only if it has not started changing the working
+     * tree yet; otherwise the project is still imported and only the optional imports are skipped.
+     */
+    boolean cancelJob(String jobId);
+
     /** Check whether the given project has a remote repository configured. */
     boolean hasRemoteRepository(String projectName);
 
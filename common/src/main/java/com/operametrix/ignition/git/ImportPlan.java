@@ -0,0 +1,72 @@
+package com.operametrix.ignition.git;
+
+import java.io.Serializable;
+
+/**
+ * What importing a revision into a gateway project would change, returned by
+ * {@link GitScriptInterface#planImport(String, String)}.
+ * <p>
+ * Counts are the project's own resource folders. They cover the files that differ between the
+ * checked out commit and the revision, and the uncommitted files of the working tree whose
+ * resources differ from the live project, as the import following a pull would apply them.
+ */
+public class ImportPlan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String revision;
+    private final int added;
+    private final int changed;
+    private final int removed;
+    private final long bytesToLoad;
+    private final long estimatedMillis;
+    private final boolean fullImport;
+
+    public ImportPlan(String revision, int added, int changed, int removed, long bytesToLoad,
+                      long estimatedMillis, boolean fullImport) {
+        this.revision = revision;
+        this.added = added;
+        this.changed = changed;
+        this.removed = removed;
+        this.bytesToLoad = bytesToLoad;
+        this.estimatedMillis = estimatedMillis;
+        this.fullImport = fullImport;
+    }
+
+    /** The revision the plan was computed for, as a commit hash. */
+    public String getRevision() {
+        return revision;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    /** Size of the files that differ, as stored in the revision, plus the data of the uncommitted resources that differ. */
+    public long getBytesToLoad() {
+        return bytesToLoad;
+    }
+
+    /** Estimated import duration, based on the imports already done by the gateway. */
+    public long getEstimatedMillis() {
+        return estimatedMillis;
+    }
+
+    /** Whether the whole project would be imported (project.json changed or too many resources changed). */
+    public boolean isFullImport() {
+        return fullImport;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportPlan{revision=%s, added=%d, changed=%d, removed=%d, bytesToLoad=%d, estimatedMillis=%d, fullImport=%s}",
+                revision, added, changed, removed, bytesToLoad, estimatedMillis, fullImport);
+    }
+}
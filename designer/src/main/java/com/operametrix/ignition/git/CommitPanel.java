@@ -1,28 +1,50 @@
 package com.operametrix.ignition.git;
 
+import com.operametrix.ignition.git.components.ChangesTableModel;
 import com.operametrix.ignition.git.components.SelectAllHeader;
 import com.operametrix.ignition.git.utils.IconUtils;
-import com.inductiveautomation.ignition.common.Dataset;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public class CommitPanel extends JPanel {
 
+    /**
+     * Gateway side of the changes table: pages sorted by resource path, read from a pinned version
+     * of the change set, and deltas between versions. Called outside of the EDT.
+     */
+    public interface ChangesSource {
+        /** @param version 0 for the latest changes, or the version of the first page */
+        ChangesPage getPage(long version, int offset, int limit, String typeFilter, String pathPrefix,
+                            String actorFilter) throws Exception;
+
+        ChangesDelta getChangesSince(long version) throws Exception;
+    }
+
+    private static final String ALL_TYPES = "All";
+
     private final JTextArea commitMessageArea;
     private final JCheckBox amendCheckBox;
     private final JButton commitButton;
     private final JTable changesTable;
+    private final ChangesTableModel changesModel;
     private final JLabel changesCountLabel;
+    private final JComboBox<String> typeFilterCombo;
+    private final JTextField pathFilterField;
+    private final JTextField actorFilterField;
+
+    private ChangesSource changesSource;
+    /** Version of the change set displayed by the table, 0 until the first load. */
+    private volatile long changesVersion;
 
     private Runnable onRefreshRequested;
     private BiConsumer<String, String> onDiffRequested;
@@ -40,6 +62,21 @@ public class CommitPanel extends JPanel {
         toolbar.add(createToolbarButton("/com/operametrix/ignition/git/icons/ic_history.svg", "Refresh", () -> {
             if (onRefreshRequested != null) onRefreshRequested.run();
         }));
+
+        typeFilterCombo = new JComboBox<>(new String[]{ALL_TYPES, "Created", "Modified", "Deleted", "Uncommitted"});
+        typeFilterCombo.setToolTipText("Filter by change type");
+        typeFilterCombo.addActionListener(e -> reloadInBackground());
+        toolbar.add(typeFilterCombo);
+
+        pathFilterField = new JTextField(12);
+        pathFilterField.setToolTipText("Filter by resource path prefix (press Enter)");
+        pathFilterField.addActionListener(e -> reloadInBackground());
+        toolbar.add(pathFilterField);
+
+        actorFilterField = new JTextField(8);
+        actorFilterField.setToolTipText("Filter by the user who last modified the resource (press Enter)");
+        actorFilterField.addActionListener(e -> reloadInBackground());
+        toolbar.add(actorFilterField);
         add(toolbar, BorderLayout.NORTH);
 
         // Center: commit section + changes table
@@ -71,13 +108,24 @@ public class CommitPanel extends JPanel {
         commitButton.setFocusPainted(false);
         commitButton.addActionListener(e -> {
             if (onCommitRequested != null) {
-                List<String> selected = getSelectedResources();
                 String message = commitMessageArea.getText().trim();
                 boolean canCommit = amendSelected
                         ? !message.isEmpty()
-                        : !selected.isEmpty() && !message.isEmpty();
+                        : changesModel.hasSelection() && !message.isEmpty();
                 if (canCommit) {
-                    onCommitRequested.accept(selected, message);
+                    // Resolving a select-all selection may fetch pages that were never displayed
+                    Callable<List<String>> selection = changesModel.captureSelection();
+                    new Thread(() -> {
+                        try {
+                            onCommitRequested.accept(selection.call(), message);
+                        } catch (Exception ex) {
+                            SwingUtilities.invokeLater(() ->
+                                    JOptionPane.showMessageDialog(CommitPanel.this,
+                                            "Failed to resolve selected changes: " + ex.getMessage(),
+                                            "Error", JOptionPane.ERROR_MESSAGE));
+                        }
+                    }).start();
+                    changesModel.clearSelection();
                     commitMessageArea.setText("");
                     amendCheckBox.setSelected(false);
                     amendSelected = false;
@@ -93,21 +141,9 @@ public class CommitPanel extends JPanel {
         changesCountLabel.setFont(changesCountLabel.getFont().deriveFont(Font.BOLD));
         changesCountLabel.setBorder(BorderFactory.createEmptyBorder(4, 0, 2, 0));
 
-        // Changes table
-        String[] columnNames = {"", "Resource", "Type"};
-        DefaultTableModel model = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public Class<?> getColumnClass(int column) {
-                return column == 0 ? Boolean.class : String.class;
-            }
-
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 0;
-            }
-        };
-
-        changesTable = new JTable(model);
+        // Changes table, rows are fetched page by page as they are scrolled into view
+        changesModel = new ChangesTableModel();
+        changesTable = new JTable(changesModel);
         changesTable.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
         changesTable.getTableHeader().setReorderingAllowed(false);
         changesTable.setRowHeight(22);
@@ -131,10 +167,8 @@ public class CommitPanel extends JPanel {
             public void mouseClicked(MouseEvent e) {
                 if (e.getClickCount() == 2) {
                     int row = changesTable.rowAtPoint(e.getPoint());
-                    if (row >= 0 && onDiffRequested != null) {
-                        String resource = (String) changesTable.getValueAt(row, 1);
-                        String type = (String) changesTable.getValueAt(row, 2);
-                        onDiffRequested.accept(resource, type);
+                    if (row >= 0 && onDiffRequested != null && changesModel.getResource(row) != null) {
+                        onDiffRequested.accept(changesModel.getResource(row), changesModel.getType(row));
                     }
                 }
             }
@@ -155,11 +189,11 @@ public class CommitPanel extends JPanel {
             private void handlePopup(MouseEvent e) {
                 if (!e.isPopupTrigger()) return;
                 int row = changesTable.rowAtPoint(e.getPoint());
-                if (row < 0) return;
+                if (row < 0 || changesModel.getResource(row) == null) return;
                 changesTable.setRowSelectionInterval(row, row);
 
-                String resource = (String) changesTable.getValueAt(row, 1);
-                String type = (String) changesTable.getValueAt(row, 2);
+                String resource = changesModel.getResource(row);
+                String type = changesModel.getType(row);
 
                 JPopupMenu menu = new JPopupMenu();
 
@@ -212,54 +246,110 @@ public class CommitPanel extends JPanel {
         return button;
     }
 
-    private List<String> getSelectedResources() {
-        List<String> selected = new ArrayList<>();
-        for (int i = 0; i < changesTable.getModel().getRowCount(); i++) {
-            if ((Boolean) changesTable.getValueAt(i, 0)) {
-                selected.add((String) changesTable.getValueAt(i, 1));
+    /**
+     * Bring the changes table up to date. When every row is loaded only the rows changed since the
+     * displayed version are fetched and applied in place; otherwise the table is reloaded.
+     * Blocks on the gateway, must be called outside of the EDT.
+     */
+    public void refresh() throws Exception {
+        ChangesSource source = changesSource;
+        long version = changesVersion;
+        if (source == null) {
+            return;
+        }
+        if (version == 0) {
+            reload();
+            return;
+        }
+
+        ChangesDelta delta = source.getChangesSince(version);
+        if (delta.getVersion() == version) {
+            return;
+        }
+
+        String[] filters = getFilters();
+        boolean[] applied = new boolean[1];
+        SwingUtilities.invokeAndWait(() -> {
+            if (delta.isFull() || !changesModel.isFullyLoaded() || version != changesVersion) {
+                return;
             }
+            changesModel.applyDelta(delta.getRows(), delta.getRemoved(), row -> matchesFilters(row, filters));
+            changesCountLabel.setText("Changes (" + changesModel.getRowCount() + ")");
+            changesVersion = delta.getVersion();
+            applied[0] = true;
+        });
+        if (!applied[0]) {
+            reload();
         }
-        return selected;
     }
 
     /**
-     * Update the changes table data. Safe to call from any thread.
+     * Reload the changes table from the {@link ChangesSource} using the current filters.
+     * Blocks on the gateway, must be called outside of the EDT.
      */
-    public void setChangesData(Dataset ds) {
+    public void reload() throws Exception {
+        ChangesSource source = changesSource;
+        if (source == null) {
+            return;
+        }
+        String[] filters = getFilters();
+        String typeFilter = filters[0];
+        String pathPrefix = filters[1];
+        String actorFilter = filters[2];
+
+        // The count and every later page come from the version of the first page
+        ChangesPage firstPage = source.getPage(0, 0, ChangesTableModel.PAGE_SIZE, typeFilter, pathPrefix, actorFilter);
+        long version = firstPage.getVersion();
         SwingUtilities.invokeLater(() -> {
-            String[] columnNames = {"", "Resource", "Type"};
-            Object[][] data = new Object[ds.getRowCount()][];
-            for (int i = 0; i < ds.getRowCount(); i++) {
-                String resource = (String) ds.getValueAt(i, "resource");
-                String type = (String) ds.getValueAt(i, "type");
-                data[i] = new Object[]{Boolean.FALSE, resource, type};
-            }
-
-            DefaultTableModel model = new DefaultTableModel(data, columnNames) {
-                @Override
-                public Class<?> getColumnClass(int column) {
-                    return column == 0 ? Boolean.class : String.class;
+            changesModel.reset(firstPage.getTotalCount(), firstPage.getRows(), (offset, limit) -> {
+                ChangesPage page = source.getPage(version, offset, limit, typeFilter, pathPrefix, actorFilter);
+                if (page.getVersion() != version) {
+                    // The gateway no longer holds the listed version, list the current one
+                    reloadInBackground();
+                    throw new IllegalStateException("The uncommitted changes were updated, review them again.");
                 }
+                return page.getRows();
+            });
+            changesCountLabel.setText("Changes (" + firstPage.getTotalCount() + ")");
+            changesVersion = version;
+        });
+    }
 
-                @Override
-                public boolean isCellEditable(int row, int column) {
-                    return column == 0;
-                }
-            };
+    private void reloadInBackground() {
+        new Thread(() -> {
+            try {
+                reload();
+            } catch (Exception ignored) {
+                // Silently ignore refresh errors
+            }
+        }).start();
+    }
 
-            changesTable.setModel(model);
-            changesTable.getColumn("").setPreferredWidth(30);
-            changesTable.getColumn("").setMaxWidth(30);
-            changesTable.getColumn("Resource").setPreferredWidth(250);
-            changesTable.getColumn("Type").setPreferredWidth(60);
-            changesTable.getColumn("Type").setMinWidth(45);
+    /** Type filter, path prefix and actor filter of the table, empty when not filtered. */
+    private String[] getFilters() throws Exception {
+        String[] filters = new String[3];
+        Runnable read = () -> {
+            String type = (String) typeFilterCombo.getSelectedItem();
+            filters[0] = type == null || ALL_TYPES.equals(type) ? "" : type;
+            filters[1] = pathFilterField.getText().trim();
+            filters[2] = actorFilterField.getText().trim();
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            read.run();
+        } else {
+            SwingUtilities.invokeAndWait(read);
+        }
+        return filters;
+    }
 
-            TableColumn tc = changesTable.getColumnModel().getColumn(0);
-            tc.setHeaderRenderer(new SelectAllHeader(changesTable, 0));
-            changesTable.getColumn("Type").setCellRenderer(new ChangeTypeCellRenderer());
+    private static boolean matchesFilters(String[] row, String[] filters) {
+        return (filters[0].isEmpty() || filters[0].equals(row[1]))
+                && (filters[1].isEmpty() || row[0].startsWith(filters[1]))
+                && (filters[2].isEmpty() || filters[2].equals(row[2]));
+    }
 
-            changesCountLabel.setText("Changes (" + ds.getRowCount() + ")");
-        });
+    public void setChangesSource(ChangesSource changesSource) {
+        this.changesSource = changesSource;
     }
 
     public void setOnRefreshRequested(Runnable onRefreshRequested) {
@@ -3,10 +3,13 @@ package com.operametrix.ignition.git;
 import com.operametrix.ignition.git.actions.GitBaseAction;
 import com.operametrix.ignition.git.managers.GitActionManager;
 import com.operametrix.ignition.git.utils.IconUtils;
+import com.inductiveautomation.ignition.client.gateway_interface.GatewayConnectionManager;
 import com.inductiveautomation.ignition.client.gateway_interface.ModuleRPCFactory;
+import com.inductiveautomation.ignition.client.gateway_interface.PushNotificationListener;
 import com.inductiveautomation.ignition.common.BundleUtil;
 import com.inductiveautomation.ignition.common.Dataset;
 import com.inductiveautomation.ignition.common.SessionInfo;
+import com.inductiveautomation.ignition.common.gateway.messages.PushNotification;
 import com.inductiveautomation.ignition.common.licensing.LicenseState;
 import com.inductiveautomation.ignition.common.project.ChangeOperation;
 import com.inductiveautomation.ignition.designer.gui.DesignerToolbar;
@@ -45,7 +48,7 @@ public class DesignerHook extends AbstractDesignerModuleHook {
     CommitPanel commitPanel;
     DockableFrame commitFrame;
     boolean commitFrameInitialized;
-    Timer commitRefreshTimer;
+    PushNotificationListener gitEventListener;
     HistoryPanel historyPanel;
     DockableFrame historyFrame;
     boolean historyFrameInitialized;
@@ -79,6 +82,7 @@ public class DesignerHook extends AbstractDesignerModuleHook {
             initToolBar();
             initCommitPanel();
             initHistoryPanel();
+            initEventListener();
         } else {
             initStatusBarUnregistered();
         }
@@ -134,16 +138,11 @@ public class DesignerHook extends AbstractDesignerModuleHook {
 
         statusBar.addDisplay(gitStatusBar);
 
+        // Credentials are not part of the repository, so they are not covered by git events
         gitUserTimer = new Timer(10000, e -> {
             boolean valid = rpc.isRegisteredUser(projectName, userName);
             String userIconPath1 = valid ? "/com/operametrix/ignition/git/icons/ic_verified_user.svg" : "/com/operametrix/ignition/git/icons/ic_unregister_user.svg";
             userButton.setIcon(IconUtils.getIcon(userIconPath1));
-
-            try {
-                branchButton.setText(rpc.getCurrentBranch(projectName));
-            } catch (Exception ex) {
-                branchButton.setText("unknown");
-            }
         });
 
         gitUserTimer.start();
@@ -187,6 +186,51 @@ public class DesignerHook extends AbstractDesignerModuleHook {
         initToolBar();
         initCommitPanel();
         initHistoryPanel();
+        initEventListener();
+    }
+
+    /**
+     * Refresh the Git panels when the gateway reports a change of this project's repository,
+     * instead of polling it.
+     */
+    private void initEventListener() {
+        if (gitEventListener != null) {
+            return;
+        }
+        gitEventListener = new PushNotificationListener() {
+            @Override
+            public void receiveNotification(PushNotification notification) {
+                if (GitEvents.MODULE_ID.equals(notification.getModuleId())
+                        && projectName.equals(notification.getMessage())) {
+                    handleGitEvent(notification.getMessageType());
+                }
+            }
+        };
+        GatewayConnectionManager.getInstance().addPushNotificationListener(gitEventListener);
+    }
+
+    private void handleGitEvent(String eventType) {
+        switch (eventType) {
+            case GitEvents.STATUS_CHANGED:
+                refreshCommitPanel();
+                break;
+            case GitEvents.BRANCH_CHANGED:
+                new Thread(this::refreshBranchLabel).start();
+                refreshHistoryPanel();
+                break;
+            case GitEvents.NEW_COMMIT:
+                refreshHistoryPanel();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void cleanupEventListener() {
+        if (gitEventListener != null) {
+            GatewayConnectionManager.getInstance().removePushNotificationListener(gitEventListener);
+            gitEventListener = null;
+        }
     }
 
     private void initToolBar() {
@@ -242,10 +286,6 @@ public class DesignerHook extends AbstractDesignerModuleHook {
         dockTimer.setRepeats(false);
         dockTimer.start();
 
-        // Auto-refresh timer
-        commitRefreshTimer = new Timer(15000, e -> refreshCommitPanel());
-        commitRefreshTimer.start();
-
         // Initial refresh
         refreshCommitPanel();
     }
@@ -264,8 +304,7 @@ public class DesignerHook extends AbstractDesignerModuleHook {
         if (commitPanel == null) return;
         new Thread(() -> {
             try {
-                Dataset ds = rpc.getUncommitedChanges(projectName, userName);
-                commitPanel.setChangesData(ds);
+                commitPanel.refresh();
             } catch (Exception e) {
                 // Silently ignore refresh errors
             }
@@ -273,10 +312,6 @@ public class DesignerHook extends AbstractDesignerModuleHook {
     }
 
     private void cleanupCommitPanel() {
-        if (commitRefreshTimer != null) {
-            commitRefreshTimer.stop();
-            commitRefreshTimer = null;
-        }
         if (commitFrameInitialized) {
             try {
                 DockingManager dockingManager = context.getDockingManager();
@@ -367,6 +402,7 @@ public class DesignerHook extends AbstractDesignerModuleHook {
             gitUserTimer.stop();
         }
 
+        cleanupEventListener();
         cleanupCommitPanel();
         cleanupHistoryPanel();
     }
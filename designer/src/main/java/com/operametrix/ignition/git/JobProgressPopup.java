@@ -0,0 +1,132 @@
+package com.operametrix.ignition.git;
+
+import com.inductiveautomation.ignition.designer.gui.CommonUI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import static com.operametrix.ignition.git.DesignerHook.rpc;
+
+/**
+ * Modal popup following a job running on the gateway. The status is polled every
+ * {@link #POLL_INTERVAL_MS} from a background thread; the popup closes when the job is finished.
+ */
+public class JobProgressPopup extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(JobProgressPopup.class);
+
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private final String jobId;
+    private JLabel phaseLabel;
+    private JLabel progressLabel;
+    private JButton cancelBtn;
+    private volatile GitJobStatus status;
+
+    private JobProgressPopup(Window parent, String title, String jobId) {
+        super(parent, title, ModalityType.APPLICATION_MODAL);
+        this.jobId = jobId;
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        setContentPane(buildUI());
+
+        pack();
+        setMinimumSize(new Dimension(360, getPreferredSize().height));
+        CommonUI.centerComponent(this, parent);
+    }
+
+    /**
+     * Show the popup until the job is finished.
+     *
+     * @return the last status of the job, null if the gateway no longer knows it
+     */
+    public static GitJobStatus waitFor(Window parent, String title, String jobId) {
+        JobProgressPopup popup = new JobProgressPopup(parent, title, jobId);
+        // Polling starts once the popup is shown, so that it can never be disposed before
+        popup.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                Thread poller = new Thread(popup::poll, "git-job-" + jobId);
+                poller.setDaemon(true);
+                poller.start();
+            }
+        });
+        popup.setVisible(true);
+        return popup.status;
+    }
+
+    private JPanel buildUI() {
+        JPanel main = new JPanel(new BorderLayout(5, 5));
+        main.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        // Center: phase and progress
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        phaseLabel = new JLabel("Waiting for the gateway...");
+        progressLabel = new JLabel(" ");
+        infoPanel.add(phaseLabel);
+        infoPanel.add(Box.createVerticalStrut(5));
+        infoPanel.add(progressLabel);
+
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        infoPanel.add(Box.createVerticalStrut(5));
+        infoPanel.add(progressBar);
+
+        main.add(infoPanel, BorderLayout.CENTER);
+
+        // Bottom: buttons
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 5));
+        cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> cancel());
+        buttonPanel.add(cancelBtn);
+
+        main.add(buttonPanel, BorderLayout.SOUTH);
+
+        return main;
+    }
+
+    private void cancel() {
+        cancelBtn.setEnabled(false);
+        phaseLabel.setText("Cancelling...");
+        new Thread(() -> {
+            try {
+                rpc.cancelJob(jobId);
+            } catch (Exception e) {
+                logger.error("Error cancelling job " + jobId, e);
+            }
+        }).start();
+    }
+
+    private void poll() {
+        try {
+            while (true) {
+                GitJobStatus current = rpc.getJobStatus(jobId);
+                status = current;
+                if (current == null || current.isFinished()) {
+                    break;
+                }
+                SwingUtilities.invokeLater(() -> update(current));
+                Thread.sleep(POLL_INTERVAL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error reading the status of job " + jobId, e);
+        } finally {
+            SwingUtilities.invokeLater(this::dispose);
+        }
+    }
+
+    private void update(GitJobStatus current) {
+        if (cancelBtn.isEnabled() && !current.getPhase().isEmpty()) {
+            phaseLabel.setText(current.getPhase() + "...");
+        }
+        if (current.getResourcesProcessed() > 0) {
+            progressLabel.setText(String.format("%d resources, %.1f MB",
+                    current.getResourcesProcessed(), current.getBytesProcessed() / (1024.0 * 1024.0)));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.operametrix.ignition.git.actions;
 
+import com.operametrix.ignition.git.GitJobStatus;
+import com.operametrix.ignition.git.JobProgressPopup;
 import com.operametrix.ignition.git.utils.IconUtils;
 import com.inductiveautomation.ignition.client.util.action.BaseAction;
 import com.inductiveautomation.ignition.client.util.gui.ErrorUtil;
@@ -153,9 +155,23 @@ public class GitBaseAction extends BaseAction {
         int messageType = JOptionPane.INFORMATION_MESSAGE;
 
         try {
-            rpc.pull(projectName, userName, remoteName, importTags, importTheme, importImages);
+            String jobId = rpc.pullAsync(projectName, userName, remoteName, importTags, importTheme, importImages);
+            GitJobStatus status = JobProgressPopup.waitFor(context.getFrame(), "Pull", jobId);
+            if (status == null || !status.isFinished()) {
+                throw new RuntimeException("Lost track of the pull running on the gateway.");
+            }
+            if (GitJobStatus.FAILED.equals(status.getState())) {
+                throw new RuntimeException(status.getMessage());
+            }
+            // A pull cancelled late still imported the project, only the optional imports were skipped
             pullProjectFromGateway();
-            SwingUtilities.invokeLater(new Thread(() -> showConfirmPopup(message, messageType)));
+            if (GitJobStatus.CANCELLED.equals(status.getState())) {
+                String cancelMessage = status.getMessage() != null ? status.getMessage()
+                        : "Pull cancelled before it started, nothing was changed.";
+                SwingUtilities.invokeLater(new Thread(() -> showConfirmPopup(cancelMessage, JOptionPane.WARNING_MESSAGE)));
+            } else {
+                SwingUtilities.invokeLater(new Thread(() -> showConfirmPopup(message, messageType)));
+            }
         } catch (Exception ex) {
             ErrorUtil.showError(ex);
         } finally {
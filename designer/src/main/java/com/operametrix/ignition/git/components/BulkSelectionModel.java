@@ -0,0 +1,13 @@
+package com.operametrix.ignition.git.components;
+
+/**
+ * Table model able to select or deselect all of its rows at once, without
+ * {@link SelectAllHeader} visiting every row (which would load every row of a lazy model).
+ */
+public interface BulkSelectionModel {
+
+    void setAllSelected(boolean allSelected);
+
+    /** TRUE if every row is selected, FALSE if none is, null otherwise. */
+    Boolean getSelectionState();
+}
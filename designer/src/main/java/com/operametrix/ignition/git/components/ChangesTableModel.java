@@ -0,0 +1,321 @@
+package com.operametrix.ignition.git.components;
+
+import com.inductiveautomation.ignition.common.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Table model of the uncommitted changes, loaded page by page as rows become visible.
+ * <p>
+ * Only the row count and the first page are fetched up front; other pages are requested from the
+ * {@link PageLoader} in the background the first time one of their rows is painted. Once every row
+ * is loaded, later changes can be applied in place with {@link #applyDelta}. Checkbox state is
+ * kept by resource path, so it survives reloads and covers rows that were never loaded.
+ * Must be used from the EDT.
+ */
+public class ChangesTableModel extends AbstractTableModel implements BulkSelectionModel {
+    public static final int PAGE_SIZE = 200;
+
+    private static final String[] COLUMN_NAMES = {"", "Resource", "Type"};
+    private static final String LOADING = "Loading...";
+    private static final Comparator<String[]> BY_RESOURCE = Comparator.comparing(row -> row[0]);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /** Fetches rows {@code offset} to {@code offset + limit} as a {@code resource, type, actor} Dataset. */
+    public interface PageLoader {
+        Dataset load(int offset, int limit) throws Exception;
+    }
+
+    private PageLoader loader;
+    private int generation;
+    /** Rows sorted by resource; null entries belong to pages not loaded yet. */
+    private final List<String[]> rows = new ArrayList<>();
+    private int loadedRows;
+    private final Set<Integer> loadingPages = new HashSet<>();
+
+    private boolean allSelected;
+    private final Set<String> selected = new HashSet<>();
+    private final Set<String> excluded = new HashSet<>();
+
+    /**
+     * Replace the content of the model. Selection is kept for resources that are still listed.
+     *
+     * @param firstPage the rows starting at offset 0, as returned by {@code loader}
+     */
+    public void reset(int rowCount, Dataset firstPage, PageLoader loader) {
+        this.generation++;
+        this.loader = loader;
+        rows.clear();
+        rows.addAll(Collections.nCopies(rowCount, null));
+        loadedRows = 0;
+        loadingPages.clear();
+        if (firstPage != null) {
+            storePage(0, toRows(firstPage));
+        }
+        fireTableDataChanged();
+    }
+
+    /** Whether every row is loaded, which is required by {@link #applyDelta}. */
+    public boolean isFullyLoaded() {
+        return loadedRows == rows.size();
+    }
+
+    /**
+     * Apply added, updated and removed changes in place, keeping scroll position and checkboxes.
+     *
+     * @param upserts added or updated rows, as a {@code resource, type, actor} Dataset
+     * @param removed resources that are no longer changed
+     * @param filter  rows of {@code upserts} rejected by the filter are removed from the table
+     */
+    public void applyDelta(Dataset upserts, Collection<String> removed, Predicate<String[]> filter) {
+        if (!isFullyLoaded()) {
+            throw new IllegalStateException("Deltas can only be applied once every row is loaded");
+        }
+        for (String resource : removed) {
+            removeRow(resource);
+            selected.remove(resource);
+            excluded.remove(resource);
+        }
+        for (String[] row : toRows(upserts)) {
+            if (!filter.test(row)) {
+                removeRow(row[0]);
+                continue;
+            }
+            int index = Collections.binarySearch(rows, row, BY_RESOURCE);
+            if (index >= 0) {
+                if (!Arrays.equals(rows.get(index), row)) {
+                    rows.set(index, row);
+                    fireTableRowsUpdated(index, index);
+                }
+            } else {
+                int insertAt = -index - 1;
+                rows.add(insertAt, row);
+                loadedRows++;
+                fireTableRowsInserted(insertAt, insertAt);
+            }
+        }
+    }
+
+    private void removeRow(String resource) {
+        int index = Collections.binarySearch(rows, new String[]{resource}, BY_RESOURCE);
+        if (index >= 0) {
+            rows.remove(index);
+            loadedRows--;
+            fireTableRowsDeleted(index, index);
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? Boolean.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == 0 && getResource(row) != null;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        String[] rowData = getRow(row);
+        if (rowData == null) {
+            return column == 0 ? Boolean.FALSE : column == 1 ? LOADING : "";
+        }
+        return column == 0 ? isSelected(rowData[0]) : rowData[column - 1];
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        String resource = getResource(row);
+        if (column != 0 || resource == null) {
+            return;
+        }
+        boolean select = Boolean.TRUE.equals(value);
+        if (allSelected) {
+            if (select) {
+                excluded.remove(resource);
+            } else {
+                excluded.add(resource);
+            }
+        } else if (select) {
+            selected.add(resource);
+        } else {
+            selected.remove(resource);
+        }
+        fireTableCellUpdated(row, column);
+    }
+
+    /** Resource path of a row, or null if its page is not loaded yet. */
+    public String getResource(int row) {
+        String[] rowData = getRow(row);
+        return rowData != null ? rowData[0] : null;
+    }
+
+    /** Change type of a row, or null if its page is not loaded yet. */
+    public String getType(int row) {
+        String[] rowData = getRow(row);
+        return rowData != null ? rowData[1] : null;
+    }
+
+    @Override
+    public void setAllSelected(boolean allSelected) {
+        this.allSelected = allSelected;
+        selected.clear();
+        excluded.clear();
+        if (!rows.isEmpty()) {
+            fireTableRowsUpdated(0, rows.size() - 1);
+        }
+    }
+
+    @Override
+    public Boolean getSelectionState() {
+        if (rows.isEmpty()) {
+            return Boolean.FALSE;
+        }
+        if (allSelected) {
+            return excluded.isEmpty() ? Boolean.TRUE : null;
+        }
+        return selected.isEmpty() ? Boolean.FALSE : null;
+    }
+
+    public void clearSelection() {
+        setAllSelected(false);
+    }
+
+    public boolean hasSelection() {
+        return allSelected ? excluded.size() < rows.size() : !selected.isEmpty();
+    }
+
+    /**
+     * Capture the current selection. The returned task may fetch the pages that were never loaded,
+     * so it must be called outside of the EDT.
+     */
+    public Callable<List<String>> captureSelection() {
+        if (!allSelected) {
+            List<String> resources = new ArrayList<>(selected);
+            return () -> resources;
+        }
+
+        Set<String> excludedResources = new HashSet<>(excluded);
+        if (isFullyLoaded()) {
+            List<String> resources = new ArrayList<>(rows.size());
+            for (String[] row : rows) {
+                if (!excludedResources.contains(row[0])) {
+                    resources.add(row[0]);
+                }
+            }
+            return () -> resources;
+        }
+
+        PageLoader pageLoader = loader;
+        int count = rows.size();
+        return () -> {
+            List<String> resources = new ArrayList<>(count);
+            for (int offset = 0; offset < count; offset += PAGE_SIZE) {
+                String[][] page = toRows(pageLoader.load(offset, PAGE_SIZE));
+                for (String[] row : page) {
+                    if (!excludedResources.contains(row[0])) {
+                        resources.add(row[0]);
+                    }
+                }
+                if (page.length < PAGE_SIZE) {
+                    break;
+                }
+            }
+            return resources;
+        };
+    }
+
+    private boolean isSelected(String resource) {
+        return allSelected ? !excluded.contains(resource) : selected.contains(resource);
+    }
+
+    private String[] getRow(int row) {
+        if (row < 0 || row >= rows.size()) {
+            return null;
+        }
+        String[] rowData = rows.get(row);
+        if (rowData == null) {
+            requestPage(row / PAGE_SIZE);
+        }
+        return rowData;
+    }
+
+    private void storePage(int page, String[][] pageRows) {
+        int first = page * PAGE_SIZE;
+        for (int i = 0; i < pageRows.length && first + i < rows.size(); i++) {
+            if (rows.get(first + i) == null) {
+                loadedRows++;
+            }
+            rows.set(first + i, pageRows[i]);
+        }
+    }
+
+    private void requestPage(int page) {
+        if (loader == null || !loadingPages.add(page)) {
+            return;
+        }
+        PageLoader pageLoader = loader;
+        int requestGeneration = generation;
+        new Thread(() -> {
+            String[][] loadedPage;
+            try {
+                loadedPage = toRows(pageLoader.load(page * PAGE_SIZE, PAGE_SIZE));
+            } catch (Exception e) {
+                // The page stays marked as loading, it is requested again after the next reset
+                logger.debug("Unable to load changes page " + page, e);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loadingPages.remove(page);
+                storePage(page, loadedPage);
+                int first = page * PAGE_SIZE;
+                int last = Math.min(first + PAGE_SIZE, rows.size()) - 1;
+                if (last >= first) {
+                    fireTableRowsUpdated(first, last);
+                }
+            });
+        }).start();
+    }
+
+    private static String[][] toRows(Dataset ds) {
+        String[][] rows = new String[ds.getRowCount()][];
+        for (int i = 0; i < ds.getRowCount(); i++) {
+            rows[i] = new String[]{(String) ds.getValueAt(i, "resource"), (String) ds.getValueAt(i, "type"),
+                    (String) ds.getValueAt(i, "actor")};
+        }
+        return rows;
+    }
+}
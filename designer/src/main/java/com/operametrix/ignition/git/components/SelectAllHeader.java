@@ -53,6 +53,10 @@ public class SelectAllHeader extends JCheckBox implements TableCellRenderer {
         public void itemStateChanged(ItemEvent e) {
             boolean state = e.getStateChange() == ItemEvent.SELECTED;
             setSelected(state);
+            if (tableModel instanceof BulkSelectionModel) {
+                ((BulkSelectionModel) tableModel).setAllSelected(state);
+                return;
+            }
             for (int r = 0; r < table.getRowCount(); r++) {
                 table.setValueAt(state, r, viewColumn);
             }
@@ -95,6 +99,10 @@ public class SelectAllHeader extends JCheckBox implements TableCellRenderer {
 
     // Return true if this toggle needs to match the model.
     private boolean needsToggle() {
+        if (tableModel instanceof BulkSelectionModel) {
+            Boolean state = ((BulkSelectionModel) tableModel).getSelectionState();
+            return Boolean.TRUE.equals(state) && !isSelected() || Boolean.FALSE.equals(state) && isSelected();
+        }
         boolean allTrue = true;
         boolean allFalse = true;
         for (int r = 0; r < tableModel.getRowCount(); r++) {
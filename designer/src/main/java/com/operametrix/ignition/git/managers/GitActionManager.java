@@ -1,6 +1,8 @@
 package com.operametrix.ignition.git.managers;
 
 import com.operametrix.ignition.git.BranchPopup;
+import com.operametrix.ignition.git.ChangesDelta;
+import com.operametrix.ignition.git.ChangesPage;
 import com.operametrix.ignition.git.CommitDetailPopup;
 import com.operametrix.ignition.git.CommitPopup;
 import com.operametrix.ignition.git.CredentialsPopup;
@@ -478,6 +480,20 @@ public class GitActionManager {
     }
 
     public static void wireCommitPanel(CommitPanel panel, String projectName, String userName) {
+        panel.setChangesSource(new CommitPanel.ChangesSource() {
+            @Override
+            public ChangesPage getPage(long version, int offset, int limit, String typeFilter, String pathPrefix,
+                                       String actorFilter) {
+                return rpc.getUncommitedChangesPage(projectName, userName, version, offset, limit,
+                        typeFilter, pathPrefix, actorFilter);
+            }
+
+            @Override
+            public ChangesDelta getChangesSince(long version) {
+                return rpc.getUncommitedChangesSince(projectName, userName, version);
+            }
+        });
+
         panel.setOnRefreshRequested(() -> {
             if (DesignerHook.instance != null) {
                 DesignerHook.instance.refreshCommitPanel();
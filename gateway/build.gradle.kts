@@ -16,3 +16,17 @@ dependencies {
 
     modlImplementation("org.eclipse.jgit:org.eclipse.jgit.ssh.apache:6.10.1.202505221210-r")
 }
+
+// Benchmarks are compiled against the module but never packaged in it: ./gradlew :gateway:benchmark
+val benchmark by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += output + compileClasspath + sourceSets.main.get().runtimeClasspath
+}
+
+tasks.register<JavaExec>("benchmark") {
+    group = "verification"
+    description = "Times building the uncommitted changes rows on 10,000 and 50,000 changed paths."
+    classpath = benchmark.runtimeClasspath
+    mainClass.set("com.operametrix.ignition.git.managers.UncommittedChangesBenchmark")
+    javaLauncher.set(javaToolchains.launcherFor(java.toolchain))
+}
@@ -0,0 +1,107 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.util.DatasetBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Times {@link GitManager#uncommittedChangesBuilder} on 10k and 50k changed paths, against the
+ * previous implementation that split every path and de-duplicated rows with {@code List.contains}.
+ * <p>
+ * Lives in the {@code benchmark} source set, which is not packaged in the module; run it with
+ * {@code ./gradlew :gateway:benchmark}. It fails if both implementations do not list the same rows.
+ * Each changed resource is reported by two files (resource.json and its data file), as Git status
+ * does for a saved Perspective view. The last modification lookup needs a gateway project and is
+ * not timed, both implementations are given no project.
+ */
+public class UncommittedChangesBenchmark {
+    private static final int[] SIZES = {10_000, 50_000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            List<Set<String>> status = newStatus(size);
+            int rows = runCurrent(status);
+            if (rows != runPrevious(status)) {
+                throw new IllegalStateException("The implementations list a different number of rows for " + size + " paths");
+            }
+            long current = measure(() -> runCurrent(status));
+            long previous = measure(() -> runPrevious(status));
+            System.out.printf("%,d changed paths: %,d rows, current %.1f ms, previous %.1f ms%n",
+                    size, rows, current / 1e6, previous / 1e6);
+        }
+    }
+
+    /** Missing, uncommitted, untracked and changed paths, {@code size} in total. */
+    private static List<Set<String>> newStatus(int size) {
+        List<Set<String>> status = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            status.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < size / 2; i++) {
+            String folder = "com.inductiveautomation.perspective/views/Folder" + (i % 100) + "/View" + i;
+            Set<String> category = status.get(i % 4);
+            category.add(folder + "/resource.json");
+            category.add(folder + "/view.json");
+        }
+        return status;
+    }
+
+    private static int runCurrent(List<Set<String>> status) {
+        DatasetBuilder builder = newBuilder();
+        Set<String> changes = new HashSet<>();
+        GitManager.uncommittedChangesBuilder(null, status.get(0), "Deleted", changes, builder);
+        GitManager.uncommittedChangesBuilder(null, status.get(1), "Uncommitted", changes, builder);
+        GitManager.uncommittedChangesBuilder(null, status.get(2), "Created", changes, builder);
+        GitManager.uncommittedChangesBuilder(null, status.get(3), "Modified", changes, builder);
+        return builder.build().getRowCount();
+    }
+
+    private static int runPrevious(List<Set<String>> status) {
+        DatasetBuilder builder = newBuilder();
+        List<String> changes = new ArrayList<>();
+        String[] types = {"Deleted", "Uncommitted", "Created", "Modified"};
+        for (int i = 0; i < types.length; i++) {
+            for (String update : status.get(i)) {
+                String path = update;
+                if (GitManager.hasActor(path)) {
+                    String[] pathSplitted = update.split("/");
+                    path = String.join("/", Arrays.copyOf(pathSplitted, pathSplitted.length - 1));
+                }
+                if (!changes.contains(path)) {
+                    changes.add(path);
+                    builder.addRow(path, types[i], "unknown", "");
+                }
+            }
+        }
+        return builder.build().getRowCount();
+    }
+
+    /** Median duration of {@link #MEASURED_RUNS} runs, in nanoseconds. */
+    private static long measure(Runnable run) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long[] durations = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long startedAt = System.nanoTime();
+            run.run();
+            durations[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(durations);
+        return durations[MEASURED_RUNS / 2];
+    }
+
+    private static DatasetBuilder newBuilder() {
+        DatasetBuilder builder = new DatasetBuilder();
+        builder.colNames(List.of("resource", "type", "actor", "timestamp"));
+        builder.colTypes(List.of(String.class, String.class, String.class, String.class));
+        return builder;
+    }
+}
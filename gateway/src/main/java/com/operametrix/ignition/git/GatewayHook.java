@@ -1,6 +1,11 @@
 package com.operametrix.ignition.git;
 
 import com.operametrix.ignition.git.commissioning.utils.GitCommissioningUtils;
+import com.operametrix.ignition.git.managers.GitRepositoryManager;
+import com.operametrix.ignition.git.managers.GitResourceCache;
+import com.operametrix.ignition.git.managers.GitResourceChangeListener;
+import com.operametrix.ignition.git.managers.GitTaskManager;
+import com.operametrix.ignition.git.managers.GitWatchManager;
 import com.operametrix.ignition.git.records.GitProjectsConfigRecord;
 import com.operametrix.ignition.git.records.GitRemoteCredentialsRecord;
 import com.operametrix.ignition.git.records.GitReposUsersRecord;
@@ -24,6 +29,7 @@ public class GatewayHook extends AbstractGatewayModuleHook {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private GatewayScriptModule scriptModule;
+    private final GitResourceChangeListener resourceChangeListener = new GitResourceChangeListener();
     public static GatewayContext context;
 
     public static final ConfigCategory CONFIG_CATEGORY =
@@ -62,11 +68,24 @@ public class GatewayHook extends AbstractGatewayModuleHook {
     public void startup(LicenseState licenseState) {
         GitCommissioningUtils.loadConfiguration();
 
+        GitTaskManager.start();
+        context.getExecutionManager().register(MODULE_NAME, "RepositoryEviction",
+                GitRepositoryManager::evictIdle, GitRepositoryManager.EVICTION_RATE_MS);
+        GitWatchManager.start();
+        context.getProjectManager().addProjectResourceListener(resourceChangeListener);
+
         logger.info("startup()");
     }
 
     @Override
     public void shutdown() {
+        context.getExecutionManager().unRegister(MODULE_NAME, "RepositoryEviction");
+        context.getProjectManager().removeProjectResourceListener(resourceChangeListener);
+        GitWatchManager.stop();
+        GitTaskManager.shutdown();
+        GitResourceCache.clear();
+        GitRepositoryManager.closeAll();
+
         logger.info("shutdown()");
     }
 
@@ -11,6 +11,7 @@ import com.inductiveautomation.ignition.common.util.LoggerEx;
 import com.inductiveautomation.ignition.gateway.model.GatewayContext;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
@@ -20,9 +21,9 @@ import simpleorm.dataset.SQuery;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 
 import static com.operametrix.ignition.git.managers.GitImageManager.exportImages;
 import static com.operametrix.ignition.git.managers.GitManager.*;
@@ -44,141 +45,205 @@ public class GatewayScriptModule extends AbstractScriptModule {
                             boolean importTags,
                             boolean importTheme,
                             boolean importImages) throws Exception {
-
+        return GitTaskManager.call(projectName, "pull",
+                () -> pullAndImport(projectName, userName, remoteName, importTags, importTheme, importImages));
+    }
+
+    @Override
+    protected String pullAsyncImpl(String projectName,
+                                   String userName,
+                                   String remoteName,
+                                   boolean importTags,
+                                   boolean importTheme,
+                                   boolean importImages) {
+        return GitJobManager.submit(projectName, "pull",
+                job -> pullAndImport(projectName, userName, remoteName, importTags, importTheme, importImages));
+    }
+
+    /**
+     * Pull from a remote and import what changed. When run as a job, it can only be cancelled
+     * before the pull starts: once the working tree may have changed, the project is always
+     * imported and a cancellation only skips the tag, theme and image imports.
+     */
+    private boolean pullAndImport(String projectName,
+                                  String userName,
+                                  String remoteName,
+                                  boolean importTags,
+                                  boolean importTheme,
+                                  boolean importImages) throws Exception {
         GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
         if (!projectRecord.hasRemote()) {
             throw new RuntimeException("No remote repository configured. Add a remote before pulling.");
         }
 
-        try (Git git = getGit(getProjectFolderPath(projectName))) {
+        Path projectFolderPath = getProjectFolderPath(projectName);
+        GitProjectManager.WorkingTreeState before = GitProjectManager.captureState(projectName);
+        ObjectId headBefore = getHead(projectFolderPath);
+        boolean skipped = false;
+        try (Git git = getGit(projectFolderPath)) {
+            GitJobManager.setPhase("Pulling");
             PullCommand pull = git.pull();
             pull.setRemote(remoteName);
             setAuthentication(pull, projectName, userName, remoteName);
 
-            PullResult result = pull.call();
-            if (!result.isSuccessful()) {
-                logger.warn("Cannot pull from git");
-            } else {
-                logger.info("Pull was successful.");
-            }
+            // From here the working tree may change, the gateway project must follow it
+            GitJobManager.setUncancellablePhase("Pulling");
+            try {
+                PullResult result = pull.call();
+                if (!result.isSuccessful()) {
+                    logger.warn("Cannot pull from git");
+                } else {
+                    logger.info("Pull was successful.");
+                }
 
-            GitProjectManager.importProject(projectName);
+                GitJobManager.setUncancellablePhase("Importing project");
+                GitProjectManager.importChanges(projectName, before);
+            } finally {
+                if (!Objects.equals(headBefore, getHead(projectFolderPath))) {
+                    GitEventManager.newCommit(projectName);
+                }
+            }
 
-            if (importTags) {
+            skipped = GitJobManager.isCancelRequested() && (importTags || importTheme || importImages);
+            if (importTags && !skipped) {
+                GitJobManager.setUncancellablePhase("Importing tags");
                 GitTagManager.importTagManager(projectName);
             }
-            if (importTheme) {
+            if (importTheme && !skipped) {
+                GitJobManager.setUncancellablePhase("Importing theme");
                 GitThemeManager.importTheme(projectName);
             }
-            if (importImages) {
+            if (importImages && !skipped) {
+                GitJobManager.setUncancellablePhase("Importing images");
                 GitImageManager.importImages(projectName);
             }
         } catch (GitAPIException e) {
             logger.error(e.toString());
             throw new RuntimeException(e);
+        } finally {
+            GitStatusManager.markAllDirty(projectName);
+        }
+        if (skipped) {
+            throw new CancellationException("The pull and the project import completed; the tag, theme and image imports were skipped.");
         }
         return true;
     }
 
     @Override
-    public boolean pushImpl(String projectName, String userName, String remoteName, boolean pushAllBranches, boolean pushTags, boolean forcePush) throws Exception {
-        GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
-        if (!projectRecord.hasRemote()) {
-            throw new RuntimeException("No remote repository configured. Add a remote before pushing.");
-        }
+    protected GitJobStatus getJobStatusImpl(String jobId) {
+        return GitJobManager.getStatus(jobId);
+    }
 
-        try (Git git = getGit(getProjectFolderPath(projectName))) {
-            PushCommand push = git.push();
-            push.setRemote(remoteName);
-            setAuthentication(push, projectName, userName, remoteName);
+    @Override
+    protected boolean cancelJobImpl(String jobId) {
+        return GitJobManager.cancel(jobId);
+    }
 
-            if (pushAllBranches) {
-                push.setPushAll();
-            }
-            if (pushTags) {
-                push.setPushTags();
-            }
-            if (forcePush) {
-                push.setForce(true);
+    @Override
+    public boolean pushImpl(String projectName, String userName, String remoteName, boolean pushAllBranches, boolean pushTags, boolean forcePush) throws Exception {
+        return GitTaskManager.call(projectName, "push", () -> {
+            GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
+            if (!projectRecord.hasRemote()) {
+                throw new RuntimeException("No remote repository configured. Add a remote before pushing.");
             }
-            Iterable<PushResult> results = push.call();
-            for (PushResult result : results) {
-                logger.trace(result.getMessages());
-                for (org.eclipse.jgit.transport.RemoteRefUpdate update : result.getRemoteUpdates()) {
-                    org.eclipse.jgit.transport.RemoteRefUpdate.Status status = update.getStatus();
-                    if (status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD) {
-                        throw new RuntimeException("REJECTED_NONFASTFORWARD: Push rejected — the remote contains commits that the local branch does not have. "
-                                + "This typically happens after amending a commit that was already pushed.");
-                    } else if (status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NODELETE
-                            || status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED
-                            || status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_OTHER_REASON) {
-                        throw new RuntimeException("Push rejected: " + update.getMessage());
+
+            try (Git git = getGit(getProjectFolderPath(projectName))) {
+                PushCommand push = git.push();
+                push.setRemote(remoteName);
+                setAuthentication(push, projectName, userName, remoteName);
+
+                if (pushAllBranches) {
+                    push.setPushAll();
+                }
+                if (pushTags) {
+                    push.setPushTags();
+                }
+                if (forcePush) {
+                    push.setForce(true);
+                }
+                Iterable<PushResult> results = push.call();
+                for (PushResult result : results) {
+                    logger.trace(result.getMessages());
+                    for (org.eclipse.jgit.transport.RemoteRefUpdate update : result.getRemoteUpdates()) {
+                        org.eclipse.jgit.transport.RemoteRefUpdate.Status status = update.getStatus();
+                        if (status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD) {
+                            throw new RuntimeException("REJECTED_NONFASTFORWARD: Push rejected — the remote contains commits that the local branch does not have. "
+                                    + "This typically happens after amending a commit that was already pushed.");
+                        } else if (status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_NODELETE
+                                || status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED
+                                || status == org.eclipse.jgit.transport.RemoteRefUpdate.Status.REJECTED_OTHER_REASON) {
+                            throw new RuntimeException("Push rejected: " + update.getMessage());
+                        }
                     }
                 }
-            }
 
-        } catch (GitAPIException e) {
-            logger.error(e.toString(), e);
-            throw new RuntimeException(e);
-        }
-        return true;
+            } catch (GitAPIException e) {
+                logger.error(e.toString(), e);
+                throw new RuntimeException(e);
+            }
+            GitEventManager.newCommit(projectName);
+            return true;
+        });
     }
 
     @Override
     protected boolean commitImpl(String projectName, String userName, List<String> changes, String message, boolean amend) {
-        try (Git git = getGit(getProjectFolderPath(projectName))) {
-            for (String change : changes) {
-                git.add().addFilepattern(change).call();
-                git.add().setUpdate(true).addFilepattern(change).call();
-            }
+        return GitTaskManager.callUnchecked(projectName, "commit", () -> {
+            try (Git git = getGit(getProjectFolderPath(projectName))) {
+                for (String change : changes) {
+                    git.add().addFilepattern(change).call();
+                    git.add().setUpdate(true).addFilepattern(change).call();
+                }
 
-            CommitCommand commit = git.commit().setMessage(message);
-            if (amend) {
-                commit.setAmend(true);
+                CommitCommand commit = git.commit().setMessage(message);
+                if (amend) {
+                    commit.setAmend(true);
+                }
+                setCommitAuthor(commit, projectName, userName);
+                commit.call();
+            } catch (GitAPIException e) {
+                logger.error(e.toString(), e);
+                throw new RuntimeException(e);
             }
-            setCommitAuthor(commit, projectName, userName);
-            commit.call();
-        } catch (GitAPIException e) {
-            logger.error(e.toString(), e);
-            throw new RuntimeException(e);
-        }
-        return true;
+            GitEventManager.newCommit(projectName);
+            GitStatusManager.markAllDirty(projectName);
+            return true;
+        });
     }
 
     @Override
     public Dataset getUncommitedChangesImpl(String projectName, String userName) {
-        Path projectPath = getProjectFolderPath(projectName);
-        Dataset ds;
-        List<String> changes = new ArrayList<>();
-        DatasetBuilder builder = new DatasetBuilder();
-        builder.colNames(List.of("resource", "type", "actor", "timestamp"));
-        builder.colTypes(List.of(String.class, String.class, String.class, String.class));
-
-        try (Git git = getGit(projectPath)) {
-            Status status = git.status().call();
-
-            Set<String> missing = status.getMissing();
-            logger.debug("Missing files: {}" + missing);
-            uncommittedChangesBuilder(projectName, missing, "Deleted", changes, builder);
-
-            Set<String> uncommittedChanges = status.getUncommittedChanges();
-            logger.debug("Uncommitted changes: {}" + uncommittedChanges);
-            uncommittedChangesBuilder(projectName, uncommittedChanges, "Uncommitted", changes, builder);
-
-            Set<String> untracked = status.getUntracked();
-            logger.debug("Untracked files: {}" + untracked);
-            uncommittedChangesBuilder(projectName, untracked, "Created", changes, builder);
-
-            Set<String> modified = status.getChanged();
-            logger.debug("Modified files: {}" + modified);
-            uncommittedChangesBuilder(projectName, modified, "Modified", changes, builder);
+        try {
+            return GitChangesManager.getUncommittedChanges(projectName);
         } catch (Exception e) {
             logger.error(e.toString(), e);
+            return new BasicDataset();
+        }
+    }
 
+    @Override
+    protected ChangesPage getUncommitedChangesPageImpl(String projectName, String userName, long version,
+                                                       int offset, int limit, String typeFilter,
+                                                       String pathPrefix, String actorFilter) {
+        try {
+            return GitChangesManager.getUncommittedChangesPage(projectName, version, offset, limit,
+                    typeFilter, pathPrefix, actorFilter);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error(e.toString(), e);
+            return new ChangesPage(0, 0, new BasicDataset());
         }
-        ds = builder.build();
+    }
 
-        return ds != null ? ds : new BasicDataset();
+    @Override
+    protected ChangesDelta getUncommitedChangesSinceImpl(String projectName, String userName, long version) {
+        try {
+            return GitChangesManager.getUncommittedChangesSince(projectName, version);
+        } catch (Exception e) {
+            logger.error(e.toString(), e);
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
@@ -196,56 +261,64 @@ public class GatewayScriptModule extends AbstractScriptModule {
 
     @Override
     protected boolean exportConfigImpl(String projectName) {
-        Path projectFolderPath = getProjectFolderPath(projectName);
-        exportImages(projectFolderPath);
-        exportTheme(projectFolderPath);
-        exportTag(projectFolderPath);
-        return true;
+        return GitTaskManager.callUnchecked(projectName, "exportConfig", () -> {
+            Path projectFolderPath = getProjectFolderPath(projectName);
+            exportImages(projectFolderPath);
+            exportTheme(projectFolderPath);
+            exportTag(projectFolderPath);
+            GitStatusManager.markDirty(projectName, List.of("images", "themes", "tags"));
+            return true;
+        });
     }
 
     @Override
     public void setupLocalRepoImpl(String projectName, String userName) throws Exception {
-        Path projectFolderPath = getProjectFolderPath(projectName);
-        GitProjectsConfigRecord gitProjectsConfigRecord = getGitProjectConfigRecord(projectName);
+        GitTaskManager.call(projectName, "setupLocalRepo", () -> {
+            Path projectFolderPath = getProjectFolderPath(projectName);
+            GitProjectsConfigRecord gitProjectsConfigRecord = getGitProjectConfigRecord(projectName);
 
-        Path path = projectFolderPath.resolve(".git");
+            Path path = projectFolderPath.resolve(".git");
 
-        if (!gitProjectsConfigRecord.hasRemote()) {
-            // Local-only repo: just ensure .git exists
-            if (!Files.exists(path)) {
-                try (Git git = Git.init().setDirectory(projectFolderPath.toFile()).call()) {
-                    disableSsl(git);
+            if (!gitProjectsConfigRecord.hasRemote()) {
+                // Local-only repo: just ensure .git exists
+                if (!Files.exists(path)) {
+                    GitRepositoryManager.invalidate(projectFolderPath);
+                    try (Git git = Git.init().setDirectory(projectFolderPath.toFile()).call()) {
+                        disableSsl(git);
+                    }
                 }
+                return null;
             }
-            return;
-        }
 
-        if (!Files.exists(path)) {
-            try (Git git = Git.init().setDirectory(projectFolderPath.toFile()).call()) {
-                disableSsl(git);
+            if (!Files.exists(path)) {
+                GitRepositoryManager.invalidate(projectFolderPath);
+                try (Git git = Git.init().setDirectory(projectFolderPath.toFile()).call()) {
+                    disableSsl(git);
 
-                final URIish urIish = new URIish(gitProjectsConfigRecord.getURI());
+                    final URIish urIish = new URIish(gitProjectsConfigRecord.getURI());
 
-                git.remoteAdd().setName("origin").setUri(urIish).call();
+                    git.remoteAdd().setName("origin").setUri(urIish).call();
 
-                FetchCommand fetch = git.fetch().setRemote("origin");
+                    FetchCommand fetch = git.fetch().setRemote("origin");
 
-                setAuthentication(fetch, projectName, userName, "origin");
-                fetch.call();
+                    setAuthentication(fetch, projectName, userName, "origin");
+                    fetch.call();
 
-                ListBranchCommand listBranches = git.branchList();
-                listBranches.setListMode(ListBranchCommand.ListMode.REMOTE);
-                List<Ref> branches = listBranches.call();
+                    ListBranchCommand listBranches = git.branchList();
+                    listBranches.setListMode(ListBranchCommand.ListMode.REMOTE);
+                    List<Ref> branches = listBranches.call();
 
-                if (branches.isEmpty()) {
-                    setupGitFromCurrentFolder(projectName, userName, git);
-                } else {
-                    setupGitFromRemoteRepo(projectName, git);
+                    if (branches.isEmpty()) {
+                        setupGitFromCurrentFolder(projectName, userName, git);
+                    } else {
+                        setupGitFromRemoteRepo(projectName, git);
+                    }
+                } catch (Exception e) {
+                    logger.warn("An error occurred while setting up local repo for '" + projectName + "' project.", e);
                 }
-            } catch (Exception e) {
-                logger.warn("An error occurred while setting up local repo for '" + projectName + "' project.", e);
             }
-        }
+            return null;
+        });
     }
 
     @Override
@@ -275,19 +348,32 @@ public class GatewayScriptModule extends AbstractScriptModule {
 
     @Override
     protected boolean createBranchImpl(String projectName, String branchName, String startPoint) throws Exception {
-        return GitManager.createBranch(getProjectFolderPath(projectName), branchName, startPoint);
+        return GitTaskManager.call(projectName, "createBranch", () -> {
+            boolean result = GitManager.createBranch(getProjectFolderPath(projectName), branchName, startPoint);
+            GitEventManager.branchChanged(projectName);
+            return result;
+        });
     }
 
     @Override
     protected boolean checkoutBranchImpl(String projectName, String branchName) throws Exception {
-        boolean result = GitManager.checkoutBranch(getProjectFolderPath(projectName), branchName);
-        GitProjectManager.importProject(projectName);
-        return result;
+        return GitTaskManager.call(projectName, "checkoutBranch", () -> {
+            GitProjectManager.WorkingTreeState before = GitProjectManager.captureState(projectName);
+            boolean result = GitManager.checkoutBranch(getProjectFolderPath(projectName), branchName);
+            GitProjectManager.importChanges(projectName, before);
+            GitEventManager.branchChanged(projectName);
+            GitStatusManager.markAllDirty(projectName);
+            return result;
+        });
     }
 
     @Override
     protected boolean deleteBranchImpl(String projectName, String branchName) throws Exception {
-        return GitManager.deleteBranch(getProjectFolderPath(projectName), branchName);
+        return GitTaskManager.call(projectName, "deleteBranch", () -> {
+            boolean result = GitManager.deleteBranch(getProjectFolderPath(projectName), branchName);
+            GitEventManager.branchChanged(projectName);
+            return result;
+        });
     }
 
     @Override
@@ -392,27 +478,54 @@ public class GatewayScriptModule extends AbstractScriptModule {
 
     @Override
     protected boolean discardChangesImpl(String projectName, List<String> paths) {
-        boolean result = GitManager.discardChanges(getProjectFolderPath(projectName), paths);
-        if (result) {
-            GitProjectManager.importProject(projectName);
-        }
-        return result;
+        return GitTaskManager.callUnchecked(projectName, "discardChanges", () -> {
+            boolean result = GitManager.discardChanges(projectName, paths);
+            GitStatusManager.markDirty(projectName, paths);
+            if (result) {
+                GitProjectManager.importPaths(projectName, paths);
+            }
+            return result;
+        });
     }
 
     @Override
     protected boolean checkoutCommitImpl(String projectName, String commitHash) throws Exception {
-        boolean result = GitManager.checkoutCommit(getProjectFolderPath(projectName), commitHash);
-        GitProjectManager.importProject(projectName);
-        return result;
+        return GitTaskManager.call(projectName, "checkoutCommit", () -> {
+            GitProjectManager.WorkingTreeState before = GitProjectManager.captureState(projectName);
+            boolean result = GitManager.checkoutCommit(getProjectFolderPath(projectName), commitHash);
+            GitProjectManager.importChanges(projectName, before);
+            GitEventManager.branchChanged(projectName);
+            GitStatusManager.markAllDirty(projectName);
+            return result;
+        });
     }
 
     @Override
     protected boolean revertCommitImpl(String projectName, String commitHash) throws Exception {
-        boolean result = GitManager.revertCommit(getProjectFolderPath(projectName), commitHash);
-        if (result) {
-            GitProjectManager.importProject(projectName);
-        }
-        return result;
+        return GitTaskManager.call(projectName, "revertCommit", () -> {
+            GitProjectManager.WorkingTreeState before = GitProjectManager.captureState(projectName);
+            boolean result = GitManager.revertCommit(getProjectFolderPath(projectName), commitHash);
+            if (result) {
+                GitProjectManager.importChanges(projectName, before);
+                GitEventManager.newCommit(projectName);
+                GitStatusManager.markAllDirty(projectName);
+            }
+            return result;
+        });
+    }
+
+    @Override
+    protected boolean deployCommitImpl(String projectName, String commitHash) throws Exception {
+        return GitTaskManager.call(projectName, "deployCommit", () -> {
+            GitProjectManager.importCommit(projectName, commitHash);
+            GitStatusManager.markAllDirty(projectName);
+            return true;
+        });
+    }
+
+    @Override
+    protected ImportPlan planImportImpl(String projectName, String revision) throws Exception {
+        return GitProjectManager.planImport(projectName, revision);
     }
 
     @Override
@@ -486,6 +599,7 @@ public class GatewayScriptModule extends AbstractScriptModule {
             throw e;
         }
 
+        GitWatchManager.watchProject(projectName);
         return true;
     }
 
@@ -516,6 +630,7 @@ public class GatewayScriptModule extends AbstractScriptModule {
         // Initialize local repo: git init + add . + initial commit
         try {
             Path projectFolderPath = getProjectFolderPath(projectName);
+            GitRepositoryManager.invalidate(projectFolderPath);
             try (Git git = Git.init().setDirectory(projectFolderPath.toFile()).call()) {
                 disableSsl(git);
                 git.add().addFilepattern(".").call();
@@ -539,6 +654,7 @@ public class GatewayScriptModule extends AbstractScriptModule {
             throw e;
         }
 
+        GitWatchManager.watchProject(projectName);
         return true;
     }
 
@@ -569,96 +685,102 @@ public class GatewayScriptModule extends AbstractScriptModule {
     protected boolean addRemoteImpl(String projectName, String remoteName, String remoteUrl,
                                      String ignitionUser, String gitUsername, String password,
                                      String sshKey) throws Exception {
-        Path projectPath = getProjectFolderPath(projectName);
-        GitManager.addRemote(projectPath, remoteName, remoteUrl);
+        return GitTaskManager.call(projectName, "addRemote", () -> {
+            Path projectPath = getProjectFolderPath(projectName);
+            GitManager.addRemote(projectPath, remoteName, remoteUrl);
 
-        // Create credential record
-        GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
-        GitRemoteCredentialsRecord creds = context.getPersistenceInterface().createNew(GitRemoteCredentialsRecord.META);
-        creds.setProjectId(projectRecord.getId());
-        creds.setIgnitionUser(ignitionUser);
-        creds.setRemoteName(remoteName);
-        creds.setUserName(gitUsername != null ? gitUsername : "");
-        if (password != null && !password.isEmpty()) {
-            creds.setPassword(password);
-        }
-        if (sshKey != null && !sshKey.isEmpty()) {
-            creds.setSSHKey(sshKey);
-        }
-        context.getPersistenceInterface().save(creds);
+            // Create credential record
+            GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
+            GitRemoteCredentialsRecord creds = context.getPersistenceInterface().createNew(GitRemoteCredentialsRecord.META);
+            creds.setProjectId(projectRecord.getId());
+            creds.setIgnitionUser(ignitionUser);
+            creds.setRemoteName(remoteName);
+            creds.setUserName(gitUsername != null ? gitUsername : "");
+            if (password != null && !password.isEmpty()) {
+                creds.setPassword(password);
+            }
+            if (sshKey != null && !sshKey.isEmpty()) {
+                creds.setSSHKey(sshKey);
+            }
+            context.getPersistenceInterface().save(creds);
 
-        // DB sync: if "origin", update GitProjectsConfigRecord.URI
-        if ("origin".equals(remoteName)) {
-            projectRecord.setURI(remoteUrl);
-            context.getPersistenceInterface().save(projectRecord);
-        }
+            // DB sync: if "origin", update GitProjectsConfigRecord.URI
+            if ("origin".equals(remoteName)) {
+                projectRecord.setURI(remoteUrl);
+                context.getPersistenceInterface().save(projectRecord);
+            }
 
-        return true;
+            return true;
+        });
     }
 
     @Override
     protected boolean removeRemoteImpl(String projectName, String remoteName,
                                         String ignitionUser) throws Exception {
-        Path projectPath = getProjectFolderPath(projectName);
-        GitManager.removeRemote(projectPath, remoteName);
-
-        // Delete credential record
-        GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
-        SQuery<GitRemoteCredentialsRecord> query = new SQuery<>(GitRemoteCredentialsRecord.META)
-                .eq(GitRemoteCredentialsRecord.ProjectId, projectRecord.getId())
-                .eq(GitRemoteCredentialsRecord.IgnitionUser, ignitionUser)
-                .eq(GitRemoteCredentialsRecord.RemoteName, remoteName);
-        GitRemoteCredentialsRecord creds = context.getPersistenceInterface().queryOne(query);
-        if (creds != null) {
-            creds.deleteRecord();
-            context.getPersistenceInterface().save(creds);
-        }
+        return GitTaskManager.call(projectName, "removeRemote", () -> {
+            Path projectPath = getProjectFolderPath(projectName);
+            GitManager.removeRemote(projectPath, remoteName);
+
+            // Delete credential record
+            GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
+            SQuery<GitRemoteCredentialsRecord> query = new SQuery<>(GitRemoteCredentialsRecord.META)
+                    .eq(GitRemoteCredentialsRecord.ProjectId, projectRecord.getId())
+                    .eq(GitRemoteCredentialsRecord.IgnitionUser, ignitionUser)
+                    .eq(GitRemoteCredentialsRecord.RemoteName, remoteName);
+            GitRemoteCredentialsRecord creds = context.getPersistenceInterface().queryOne(query);
+            if (creds != null) {
+                creds.deleteRecord();
+                context.getPersistenceInterface().save(creds);
+            }
 
-        // DB sync: if "origin", clear GitProjectsConfigRecord.URI
-        if ("origin".equals(remoteName)) {
-            projectRecord.setURI("");
-            context.getPersistenceInterface().save(projectRecord);
-        }
+            // DB sync: if "origin", clear GitProjectsConfigRecord.URI
+            if ("origin".equals(remoteName)) {
+                projectRecord.setURI("");
+                context.getPersistenceInterface().save(projectRecord);
+            }
 
-        return true;
+            return true;
+        });
     }
 
     @Override
     protected boolean setRemoteUrlImpl(String projectName, String remoteName, String newUrl,
                                         String ignitionUser, String gitUsername, String password,
                                         String sshKey) throws Exception {
-        Path projectPath = getProjectFolderPath(projectName);
-        GitManager.setRemoteUrl(projectPath, remoteName, newUrl);
-
-        // Update credential record
-        GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
-        SQuery<GitRemoteCredentialsRecord> query = new SQuery<>(GitRemoteCredentialsRecord.META)
-                .eq(GitRemoteCredentialsRecord.ProjectId, projectRecord.getId())
-                .eq(GitRemoteCredentialsRecord.IgnitionUser, ignitionUser)
-                .eq(GitRemoteCredentialsRecord.RemoteName, remoteName);
-        GitRemoteCredentialsRecord creds = context.getPersistenceInterface().queryOne(query);
-        if (creds == null) {
-            creds = context.getPersistenceInterface().createNew(GitRemoteCredentialsRecord.META);
-            creds.setProjectId(projectRecord.getId());
-            creds.setIgnitionUser(ignitionUser);
-            creds.setRemoteName(remoteName);
-        }
-        creds.setUserName(gitUsername != null ? gitUsername : "");
-        if (password != null && !password.isEmpty()) {
-            creds.setPassword(password);
-        }
-        if (sshKey != null && !sshKey.isEmpty()) {
-            creds.setSSHKey(sshKey);
-        }
-        context.getPersistenceInterface().save(creds);
+        return GitTaskManager.call(projectName, "setRemoteUrl", () -> {
+            Path projectPath = getProjectFolderPath(projectName);
+            GitManager.setRemoteUrl(projectPath, remoteName, newUrl);
+
+            // Update credential record
+            GitProjectsConfigRecord projectRecord = getGitProjectConfigRecord(projectName);
+            SQuery<GitRemoteCredentialsRecord> query = new SQuery<>(GitRemoteCredentialsRecord.META)
+                    .eq(GitRemoteCredentialsRecord.ProjectId, projectRecord.getId())
+                    .eq(GitRemoteCredentialsRecord.IgnitionUser, ignitionUser)
+                    .eq(GitRemoteCredentialsRecord.RemoteName, remoteName);
+            GitRemoteCredentialsRecord creds = context.getPersistenceInterface().queryOne(query);
+            if (creds == null) {
+                creds = context.getPersistenceInterface().createNew(GitRemoteCredentialsRecord.META);
+                creds.setProjectId(projectRecord.getId());
+                creds.setIgnitionUser(ignitionUser);
+                creds.setRemoteName(remoteName);
+            }
+            creds.setUserName(gitUsername != null ? gitUsername : "");
+            if (password != null && !password.isEmpty()) {
+                creds.setPassword(password);
+            }
+            if (sshKey != null && !sshKey.isEmpty()) {
+                creds.setSSHKey(sshKey);
+            }
+            context.getPersistenceInterface().save(creds);
 
-        // DB sync: if "origin", update GitProjectsConfigRecord.URI
-        if ("origin".equals(remoteName)) {
-            projectRecord.setURI(newUrl);
-            context.getPersistenceInterface().save(projectRecord);
-        }
+            // DB sync: if "origin", update GitProjectsConfigRecord.URI
+            if ("origin".equals(remoteName)) {
+                projectRecord.setURI(newUrl);
+                context.getPersistenceInterface().save(projectRecord);
+            }
 
-        return true;
+            return true;
+        });
     }
 
     private void setupGitFromCurrentFolder(String projectName, String userName, Git git) throws Exception {
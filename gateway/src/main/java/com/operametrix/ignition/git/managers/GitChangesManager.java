@@ -0,0 +1,400 @@
+package com.operametrix.ignition.git.managers;
+
+import com.operametrix.ignition.git.ChangesDelta;
+import com.operametrix.ignition.git.ChangesPage;
+import com.inductiveautomation.ignition.common.BasicDataset;
+import com.inductiveautomation.ignition.common.Dataset;
+import com.inductiveautomation.ignition.common.project.RuntimeProject;
+import com.inductiveautomation.ignition.common.util.DatasetBuilder;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static com.operametrix.ignition.git.GatewayHook.context;
+import static com.operametrix.ignition.git.managers.GitManager.uncommittedChangesBuilder;
+
+/**
+ * Builds the uncommitted changes Dataset shown by the Designer Commit panel, shared by every
+ * session of a project. Large change sets can be read page by page, sorted and filtered on the
+ * gateway, see {@link #getUncommittedChangesPage}, and Designers already holding a version only
+ * fetch what changed since, see {@link #getUncommittedChangesSince}.
+ * <p>
+ * The last {@link #MAX_SNAPSHOTS} versions of each project stay pinned in memory with their sorted
+ * and filtered rows, so the pages of one listing are all read from the version of its first page,
+ * however long it takes to scroll through them, and no page sorts or filters the rows again.
+ * <p>
+ * Concurrent requests for the same project join a single in-flight computation, and the result is
+ * served from memory for {@link #CACHE_TTL_MS} afterwards. Any change reported to
+ * {@link GitStatusManager} invalidates the cached result immediately, so the cache never hides a
+ * change made through the module or detected on disk.
+ */
+public class GitChangesManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitChangesManager.class);
+
+    public static final long CACHE_TTL_MS = Long.getLong("ignition.git.changesCacheTtlMs", 1000L);
+
+    private static final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private static final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private static final Map<String, ChangeSet> cache = new ConcurrentHashMap<>();
+
+    /** Number of consecutive versions a Designer can be behind and still receive a delta. */
+    public static final int MAX_HISTORY = Integer.getInteger("ignition.git.changesHistorySize", 32);
+
+    private static final Map<String, ChangeHistory> histories = new ConcurrentHashMap<>();
+
+    /** Number of versions per project whose pages can still be requested. */
+    public static final int MAX_SNAPSHOTS = Integer.getInteger("ignition.git.changesSnapshots", 4);
+
+    private static final Map<String, Map<Long, ChangeSet>> snapshots = new ConcurrentHashMap<>();
+    // Seeded with the clock so versions held by Designers are never reused after a gateway restart
+    private static final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    private static final int COL_RESOURCE = 0;
+    private static final int COL_TYPE = 1;
+    private static final int COL_ACTOR = 2;
+    private static final int COL_TIMESTAMP = 3;
+
+    /**
+     * Get the uncommitted changes of a project as a {@code resource, type, actor, timestamp} Dataset.
+     */
+    public static Dataset getUncommittedChanges(String projectName) throws Exception {
+        return getChangeSet(projectName).dataset;
+    }
+
+    /**
+     * Get one page of the uncommitted changes of a project, sorted by resource path, with the number
+     * of changes matching the filters.
+     *
+     * @param version     version returned with a previous page, to read the page from the same
+     *                    change set, or 0 for the latest one. A version no longer pinned returns the
+     *                    page of the latest version.
+     * @param offset      index of the first row of the page in the filtered result, not negative
+     * @param limit       maximum number of rows returned, not negative
+     * @param typeFilter  only return rows of this change type, ignored if empty
+     * @param pathPrefix  only return resources starting with this path, ignored if empty
+     * @param actorFilter only return resources last modified by this actor, ignored if empty
+     * @throws IllegalArgumentException if {@code offset} or {@code limit} is negative
+     */
+    public static ChangesPage getUncommittedChangesPage(String projectName, long version, int offset, int limit,
+                                                        String typeFilter, String pathPrefix, String actorFilter) throws Exception {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid page: offset " + offset + ", limit " + limit);
+        }
+        ChangeSet changeSet = version != 0 ? getSnapshot(projectName, version) : null;
+        if (changeSet == null) {
+            changeSet = getChangeSet(projectName);
+        }
+        Dataset dataset = changeSet.dataset;
+        int[] rows = changeSet.filter(typeFilter, pathPrefix, actorFilter);
+
+        DatasetBuilder builder = newChangesBuilder();
+        int end = (int) Math.min((long) offset + limit, rows.length);
+        for (int i = offset; i < end; i++) {
+            int row = rows[i];
+            builder.addRow(dataset.getValueAt(row, COL_RESOURCE), dataset.getValueAt(row, COL_TYPE),
+                    dataset.getValueAt(row, COL_ACTOR), dataset.getValueAt(row, COL_TIMESTAMP));
+        }
+
+        return new ChangesPage(changeSet.version, rows.length, toDataset(builder));
+    }
+
+    /**
+     * Get the changes made to the uncommitted changes of a project since {@code version}, as
+     * previously returned in a {@link ChangesDelta}. An unknown version, such as 0, returns a full
+     * delta: the current version with no rows, the caller reloads the whole change set.
+     */
+    public static ChangesDelta getUncommittedChangesSince(String projectName, long version) throws Exception {
+        getChangeSet(projectName);
+        return history(projectName).since(version);
+    }
+
+    /** Drop the cached changes of a project; the next request recomputes them. */
+    public static void invalidate(String projectName) {
+        generation(projectName).incrementAndGet();
+        cache.remove(projectName);
+    }
+
+    private static ChangeSet getSnapshot(String projectName, long version) {
+        Map<Long, ChangeSet> projectSnapshots = snapshots.get(projectName);
+        if (projectSnapshots == null) {
+            return null;
+        }
+        synchronized (projectSnapshots) {
+            return projectSnapshots.get(version);
+        }
+    }
+
+    /**
+     * Pin a computed change set under its version. A version that is already pinned keeps its
+     * change set, with the rows it already sorted and filtered, which is returned instead.
+     */
+    private static ChangeSet pin(String projectName, ChangeSet changeSet) {
+        if (changeSet.version == 0) {
+            return changeSet;
+        }
+        Map<Long, ChangeSet> projectSnapshots = snapshots.computeIfAbsent(projectName,
+                name -> new LinkedHashMap<Long, ChangeSet>(MAX_SNAPSHOTS * 2, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Long, ChangeSet> eldest) {
+                        return size() > MAX_SNAPSHOTS;
+                    }
+                });
+        synchronized (projectSnapshots) {
+            ChangeSet pinned = projectSnapshots.putIfAbsent(changeSet.version, changeSet);
+            if (pinned == null) {
+                return changeSet;
+            }
+            pinned.computedAt = changeSet.computedAt;
+            pinned.generation = changeSet.generation;
+            return pinned;
+        }
+    }
+
+    private static ChangeSet getChangeSet(String projectName) throws Exception {
+        long generation = generation(projectName).get();
+
+        ChangeSet cached = cache.get(projectName);
+        if (cached != null && cached.generation == generation
+                && System.currentTimeMillis() - cached.computedAt < CACHE_TTL_MS) {
+            return cached;
+        }
+
+        // Join a computation started for the same generation, or become the leader of a new one
+        Flight flight = new Flight(generation);
+        Flight current = inFlight.compute(projectName,
+                (name, existing) -> existing != null && existing.generation == generation ? existing : flight);
+        if (current != flight) {
+            return await(current.future);
+        }
+
+        try {
+            Dataset dataset = buildDataset(projectName);
+            long version = history(projectName).record(generation, dataset);
+            ChangeSet changeSet = pin(projectName, new ChangeSet(generation, version, dataset));
+            cache.put(projectName, changeSet);
+            flight.future.complete(changeSet);
+            return changeSet;
+        } catch (Exception e) {
+            flight.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(projectName, flight);
+        }
+    }
+
+    private static AtomicLong generation(String projectName) {
+        return generations.computeIfAbsent(projectName, name -> new AtomicLong());
+    }
+
+    private static ChangeHistory history(String projectName) {
+        return histories.computeIfAbsent(projectName, name -> new ChangeHistory());
+    }
+
+    private static DatasetBuilder newChangesBuilder() {
+        DatasetBuilder builder = new DatasetBuilder();
+        builder.colNames(List.of("resource", "type", "actor", "timestamp"));
+        builder.colTypes(List.of(String.class, String.class, String.class, String.class));
+        return builder;
+    }
+
+    private static Dataset buildDataset(String projectName) throws Exception {
+        DatasetBuilder builder = newChangesBuilder();
+
+        GitStatusManager.StatusSnapshot status = GitStatusManager.getStatus(projectName);
+        logger.tracef("Building uncommitted changes of '%s'", projectName);
+
+        // Resolved once: every row reads its last modification from the same project
+        RuntimeProject project = context.getProjectManager().getProject(projectName).orElse(null);
+        Set<String> changes = new HashSet<>();
+        uncommittedChangesBuilder(project, status.getMissing(), "Deleted", changes, builder);
+        uncommittedChangesBuilder(project, status.getUncommittedChanges(), "Uncommitted", changes, builder);
+        uncommittedChangesBuilder(project, status.getUntracked(), "Created", changes, builder);
+        uncommittedChangesBuilder(project, status.getChanged(), "Modified", changes, builder);
+
+        return toDataset(builder);
+    }
+
+    /** The rows added to {@code builder}, never null even when no row was added. */
+    private static Dataset toDataset(DatasetBuilder builder) {
+        Dataset dataset = builder.build();
+        return dataset != null ? dataset : new BasicDataset();
+    }
+
+    private static boolean matches(Dataset dataset, int row, String typeFilter, String pathPrefix, String actorFilter) {
+        if (typeFilter != null && !typeFilter.isEmpty() && !typeFilter.equals(dataset.getValueAt(row, COL_TYPE))) {
+            return false;
+        }
+        if (pathPrefix != null && !pathPrefix.isEmpty()
+                && !((String) dataset.getValueAt(row, COL_RESOURCE)).startsWith(pathPrefix)) {
+            return false;
+        }
+        return actorFilter == null || actorFilter.isEmpty() || actorFilter.equals(dataset.getValueAt(row, COL_ACTOR));
+    }
+
+    private static ChangeSet await(CompletableFuture<ChangeSet> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static class Flight {
+        private final long generation;
+        private final CompletableFuture<ChangeSet> future = new CompletableFuture<>();
+
+        Flight(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static class ChangeSet {
+        private volatile long generation;
+        /** Version recorded by the project's {@link ChangeHistory}, 0 if a newer one was recorded first. */
+        private final long version;
+        private final Dataset dataset;
+        /** Row indexes of {@link #dataset} ordered by resource path, used for paging. */
+        private final int[] sortedRows;
+        /** Sorted row indexes matching each filter combination requested so far. */
+        private final Map<String, int[]> filteredRows = new ConcurrentHashMap<>();
+        private volatile long computedAt = System.currentTimeMillis();
+
+        ChangeSet(long generation, long version, Dataset dataset) {
+            this.generation = generation;
+            this.version = version;
+            this.dataset = dataset;
+            this.sortedRows = IntStream.range(0, dataset.getRowCount())
+                    .boxed()
+                    .sorted(Comparator.comparing(row -> String.valueOf(dataset.getValueAt(row, COL_RESOURCE))))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        int[] filter(String typeFilter, String pathPrefix, String actorFilter) {
+            String key = typeFilter + '\u0000' + pathPrefix + '\u0000' + actorFilter;
+            return filteredRows.computeIfAbsent(key, k -> Arrays.stream(sortedRows)
+                    .filter(row -> matches(dataset, row, typeFilter, pathPrefix, actorFilter))
+                    .toArray());
+        }
+    }
+
+    /**
+     * Versions of a project's change set. Only the latest rows are kept in full; older versions are
+     * kept as the differences between consecutive versions, so memory follows the amount of change.
+     */
+    private static class ChangeHistory {
+        private long generation = -1;
+        private long version;
+        private Map<String, Object[]> rows = new HashMap<>();
+        private final Deque<VersionDelta> deltas = new ArrayDeque<>();
+
+        /** @return the version of {@code dataset}, or 0 if a more recent computation was recorded first */
+        synchronized long record(long generation, Dataset dataset) {
+            // A computation started before a more recent one must not overwrite it
+            if (generation < this.generation) {
+                return 0;
+            }
+            this.generation = generation;
+
+            Map<String, Object[]> newRows = new HashMap<>(dataset.getRowCount() * 2);
+            for (int row = 0; row < dataset.getRowCount(); row++) {
+                newRows.put((String) dataset.getValueAt(row, COL_RESOURCE), new Object[]{
+                        dataset.getValueAt(row, COL_RESOURCE), dataset.getValueAt(row, COL_TYPE),
+                        dataset.getValueAt(row, COL_ACTOR), dataset.getValueAt(row, COL_TIMESTAMP)});
+            }
+
+            Map<String, Object[]> upserts = new HashMap<>();
+            newRows.forEach((resource, row) -> {
+                if (!Arrays.equals(rows.get(resource), row)) {
+                    upserts.put(resource, row);
+                }
+            });
+            Set<String> removed = new HashSet<>(rows.keySet());
+            removed.removeAll(newRows.keySet());
+
+            if (version != 0 && upserts.isEmpty() && removed.isEmpty()) {
+                return version;
+            }
+            if (version != 0) {
+                deltas.addLast(new VersionDelta(version, upserts, removed));
+                while (deltas.size() > MAX_HISTORY) {
+                    deltas.removeFirst();
+                }
+            }
+            rows = newRows;
+            version = versions.incrementAndGet();
+            return version;
+        }
+
+        synchronized ChangesDelta since(long fromVersion) {
+            if (fromVersion == version) {
+                return new ChangesDelta(version, false, toDataset(newChangesBuilder()), new ArrayList<>());
+            }
+
+            Iterator<VersionDelta> iterator = deltas.iterator();
+            VersionDelta delta = null;
+            while (iterator.hasNext()) {
+                VersionDelta candidate = iterator.next();
+                if (candidate.fromVersion == fromVersion) {
+                    delta = candidate;
+                    break;
+                }
+            }
+            if (delta == null) {
+                return new ChangesDelta(version, true, toDataset(newChangesBuilder()), new ArrayList<>());
+            }
+
+            // Fold every later delta into one: the last state of each resource wins
+            Map<String, Object[]> upserts = new TreeMap<>();
+            Set<String> removed = new HashSet<>();
+            while (delta != null) {
+                for (String resource : delta.removed) {
+                    upserts.remove(resource);
+                    removed.add(resource);
+                }
+                for (Map.Entry<String, Object[]> entry : delta.upserts.entrySet()) {
+                    removed.remove(entry.getKey());
+                    upserts.put(entry.getKey(), entry.getValue());
+                }
+                delta = iterator.hasNext() ? iterator.next() : null;
+            }
+
+            DatasetBuilder builder = newChangesBuilder();
+            upserts.values().forEach(builder::addRow);
+            return new ChangesDelta(version, false, toDataset(builder), new ArrayList<>(removed));
+        }
+    }
+
+    private static class VersionDelta {
+        private final long fromVersion;
+        private final Map<String, Object[]> upserts;
+        private final Set<String> removed;
+
+        VersionDelta(long fromVersion, Map<String, Object[]> upserts, Set<String> removed) {
+            this.fromVersion = fromVersion;
+            this.upserts = upserts;
+            this.removed = removed;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.operametrix.ignition.git.managers;
+
+import com.operametrix.ignition.git.GitEvents;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.operametrix.ignition.git.GatewayHook.context;
+
+/**
+ * Broadcasts {@link GitEvents} to connected Designers so they refresh only when a project's
+ * repository actually changed, instead of polling the gateway.
+ */
+public class GitEventManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitEventManager.class);
+
+    /** Bursts of file changes (e.g. a save touching many resources) collapse into one event. */
+    private static final long STATUS_DEBOUNCE_MS = 500;
+
+    private static final Set<String> pendingStatusEvents = ConcurrentHashMap.newKeySet();
+
+    /** Notify that the working-tree status of a project may have changed (debounced). */
+    public static void statusChanged(String projectName) {
+        if (context == null || !pendingStatusEvents.add(projectName)) {
+            return;
+        }
+        context.getExecutionManager().executeOnce(() -> {
+            pendingStatusEvents.remove(projectName);
+            publish(projectName, GitEvents.STATUS_CHANGED);
+        }, STATUS_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static void branchChanged(String projectName) {
+        publish(projectName, GitEvents.BRANCH_CHANGED);
+    }
+
+    public static void newCommit(String projectName) {
+        publish(projectName, GitEvents.NEW_COMMIT);
+    }
+
+    private static void publish(String projectName, String eventType) {
+        if (context == null) {
+            return;
+        }
+        try {
+            context.getGatewaySessionManager().sendNotification(GitEvents.MODULE_ID, eventType, projectName);
+        } catch (Exception e) {
+            logger.debug("Unable to send '" + eventType + "' notification for project '" + projectName + "'", e);
+        }
+    }
+}
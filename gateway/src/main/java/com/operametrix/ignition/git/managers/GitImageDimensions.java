@@ -0,0 +1,188 @@
+package com.operametrix.ignition.git.managers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the width and height of an image from its header, without decoding it.
+ * <p>
+ * PNG, GIF and JPEG dimensions are read from the first bytes of the file (IHDR chunk, logical
+ * screen descriptor, first SOF segment). SVG dimensions come from the {@code width} and
+ * {@code height} attributes of the root element, or from its {@code viewBox}. Nothing here depends
+ * on AWT or holds shared state, so images can be probed on a headless gateway and from any thread.
+ */
+public class GitImageDimensions {
+
+    /** The root element of an SVG document is expected within this many bytes. */
+    private static final int SVG_HEADER_BYTES = 64 * 1024;
+
+    private static final Pattern SVG_ROOT = Pattern.compile("<svg\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SVG_LENGTH = Pattern.compile("\\s*([0-9]*\\.?[0-9]+(?:[eE][-+]?[0-9]+)?)\\s*(px|pt|pc|mm|cm|in)?\\s*");
+
+    /**
+     * @param format image format, as the upper-case file extension ({@code PNG}, {@code JPG}...)
+     * @return {width, height}, or null if the dimensions cannot be read
+     */
+    public static int[] read(String format, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        switch (format) {
+            case "PNG":
+                return readPng(data);
+            case "GIF":
+                return readGif(data);
+            case "JPG":
+            case "JPEG":
+                return readJpeg(data);
+            case "SVG":
+                return readSvg(data);
+            default:
+                return null;
+        }
+    }
+
+    private static int[] readPng(byte[] data) {
+        // 8 bytes signature, then the IHDR chunk: length, type, width, height
+        if (data.length < 24 || (data[0] & 0xFF) != 0x89 || data[1] != 'P' || data[2] != 'N' || data[3] != 'G'
+                || data[12] != 'I' || data[13] != 'H' || data[14] != 'D' || data[15] != 'R') {
+            return null;
+        }
+        return new int[]{readInt(data, 16), readInt(data, 20)};
+    }
+
+    private static int[] readGif(byte[] data) {
+        // "GIF87a" or "GIF89a", then the logical screen width and height, little-endian
+        if (data.length < 10 || data[0] != 'G' || data[1] != 'I' || data[2] != 'F') {
+            return null;
+        }
+        return new int[]{(data[6] & 0xFF) | (data[7] & 0xFF) << 8, (data[8] & 0xFF) | (data[9] & 0xFF) << 8};
+    }
+
+    private static int[] readJpeg(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return null;
+        }
+        int offset = 2;
+        while (offset + 3 < data.length) {
+            if ((data[offset] & 0xFF) != 0xFF) {
+                return null;
+            }
+            int marker = data[offset + 1] & 0xFF;
+            if (marker == 0xFF) {
+                // Fill byte
+                offset++;
+                continue;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // Markers without a segment
+                offset += 2;
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // End of image or start of scan: no frame header was found before the image data
+                return null;
+            }
+            int length = readShort(data, offset + 2);
+            boolean startOfFrame = marker >= 0xC0 && marker <= 0xCF
+                    && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+            if (startOfFrame) {
+                // Segment length, sample precision, height, width
+                if (offset + 9 > data.length) {
+                    return null;
+                }
+                return new int[]{readShort(data, offset + 7), readShort(data, offset + 5)};
+            }
+            offset += 2 + length;
+        }
+        return null;
+    }
+
+    private static int[] readSvg(byte[] data) {
+        String header = new String(data, 0, Math.min(data.length, SVG_HEADER_BYTES), StandardCharsets.UTF_8);
+        Matcher root = SVG_ROOT.matcher(header);
+        if (!root.find()) {
+            return null;
+        }
+        String tag = root.group();
+        double width = parseLength(getAttribute(tag, "width"));
+        double height = parseLength(getAttribute(tag, "height"));
+
+        String viewBox = getAttribute(tag, "viewBox");
+        if (viewBox != null && (width <= 0 || height <= 0)) {
+            String[] values = viewBox.trim().split("[\\s,]+");
+            if (values.length == 4) {
+                try {
+                    double boxWidth = Double.parseDouble(values[2]);
+                    double boxHeight = Double.parseDouble(values[3]);
+                    if (boxWidth > 0 && boxHeight > 0) {
+                        // A single given dimension keeps the aspect ratio of the view box
+                        if (width > 0) {
+                            height = width * boxHeight / boxWidth;
+                        } else if (height > 0) {
+                            width = height * boxWidth / boxHeight;
+                        } else {
+                            width = boxWidth;
+                            height = boxHeight;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        return new int[]{(int) Math.round(width), (int) Math.round(height)};
+    }
+
+    /** Value of an attribute of an element start tag, or null if absent. */
+    private static String getAttribute(String tag, String name) {
+        Matcher matcher = Pattern.compile("\\s" + name + "\\s*=\\s*(\"([^\"]*)\"|'([^']*)')").matcher(tag);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+    }
+
+    /**
+     * Length in pixels of an absolute SVG length, or -1 if it is absent, relative (%, em...) or invalid.
+     */
+    private static double parseLength(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Matcher matcher = SVG_LENGTH.matcher(value);
+        if (!matcher.matches()) {
+            return -1;
+        }
+        double length = Double.parseDouble(matcher.group(1));
+        String unit = matcher.group(2);
+        if (unit == null || unit.equals("px")) {
+            return length;
+        }
+        switch (unit) {
+            case "pt":
+                return length * 96 / 72;
+            case "pc":
+                return length * 16;
+            case "mm":
+                return length * 96 / 25.4;
+            case "cm":
+                return length * 96 / 2.54;
+            default:
+                return length * 96;
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+                | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+    }
+
+    private static int readShort(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF);
+    }
+}
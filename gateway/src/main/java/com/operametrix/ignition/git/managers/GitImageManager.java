@@ -4,174 +4,324 @@ import com.inductiveautomation.ignition.common.util.LoggerEx;
 import com.inductiveautomation.ignition.gateway.images.ImageFormat;
 import com.inductiveautomation.ignition.gateway.images.ImageManager;
 import com.inductiveautomation.ignition.gateway.images.ImageRecord;
-import com.inductiveautomation.ignition.gateway.localdb.persistence.PersistenceInterface;
+import com.inductiveautomation.ignition.gateway.localdb.persistence.PersistenceSession;
 import simpleorm.dataset.SQuery;
 
-import javax.swing.*;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static com.operametrix.ignition.git.GatewayHook.context;
-import static com.operametrix.ignition.git.managers.GitManager.clearDirectory;
+import static com.operametrix.ignition.git.managers.GitManager.deleteOtherFiles;
 import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderPath;
+import static com.operametrix.ignition.git.managers.GitManager.hasSameContent;
 
 public class GitImageManager {
     private final static LoggerEx logger = LoggerEx.newBuilder().build(GitImageManager.class);
 
-    public static void importImages(String projectName) {
-        Path projectDir = getProjectFolderPath(projectName);
-        File directory = projectDir.resolve("images").toFile();
-
-        // DELETION
-        PersistenceInterface persistenceInterface = context.getPersistenceInterface();
-        List<ImageRecord> images = persistenceInterface.query(new SQuery<>(ImageRecord.META));
-        images.forEach(i -> {
-            i.deleteRecord();
-            persistenceInterface.save(i);
-        });
+    /** Threads reading, hashing and probing image files. Database writes are done by the importing thread. */
+    public static final int IMAGE_THREADS = Integer.getInteger("ignition.git.imageThreads",
+            Runtime.getRuntime().availableProcessors());
 
-        // INSERTION
-        File[] files = directory.listFiles();
-        uploadFiles(files != null ? files : new File[0]);
-    }
-
-    protected static void uploadFiles(File[] files) {
-        for (File file : files) {
-            if (file.isDirectory()) {
-                uploadFolder(file, "");
-            } else {
-                uploadFile(file, "");
-            }
+    /**
+     * Make the gateway images match the {@code images} folder of the project. Only the differences
+     * are applied: images are matched by path, then by size and content hash, and unchanged images
+     * and folders are left untouched. The removed and modified records are deleted in one
+     * transaction, then the new folders and the new and modified files are inserted through the
+     * {@link ImageManager}, so its cache and listeners see the new data. The image manager cannot
+     * update the data of an image, so a modified image is missing until it is inserted again.
+     * <p>
+     * Files are hashed, read and probed on a pool of {@link #IMAGE_THREADS} threads while the
+     * records are written one at a time, in path order, by the calling thread. At most two files
+     * per thread are read ahead of the insertions.
+     */
+    public static void importImages(String projectName) {
+        Path imagesDir = getProjectFolderPath(projectName).resolve("images");
+        TreeMap<String, Path> diskFolders = new TreeMap<>();
+        TreeMap<String, Path> diskImages = new TreeMap<>();
+        try {
+            listImageFiles(imagesDir, diskFolders, diskImages);
+        } catch (IOException e) {
+            logger.error("Unable to list the images of '" + projectName + "' project.", e);
+            throw new RuntimeException(e);
         }
-    }
 
-
-    protected static void uploadFile(File f, String path) {
-        String lName = f.getName().toLowerCase();
-        if (lName.endsWith(".png") || lName
-                .endsWith(".gif") || lName
-                .endsWith(".jpg") || lName
-                .endsWith(".jpeg") || lName
-                .endsWith(".svg"))
+        ExecutorService pool = newImagePool();
+        try {
+            // Deleting in reverse path order removes images before their folder
+            TreeMap<String, ImageRecord> deletions = new TreeMap<>();
+            TreeMap<String, ImageRecord> modified = new TreeMap<>();
+            int unchanged = 0;
+            PersistenceSession session = context.getPersistenceInterface().getSession();
             try {
-                String ext = lName.substring(lName.lastIndexOf(".") + 1).toUpperCase();
-                byte[] bytes = Files.readAllBytes(f.toPath());
-                int width = 0;
-                int height = 0;
-                Image img = Toolkit.getDefaultToolkit().createImage(bytes);
-                if (PathIcon.waitForImage(img)) {
-                    width = img.getWidth(null);
-                    height = img.getHeight(null);
+                List<ImageRecord> records = session.query(new SQuery<>(ImageRecord.META));
+                List<Future<Boolean>> comparisons = new ArrayList<>(records.size());
+                for (ImageRecord record : records) {
+                    Path file = record.isDirectory() ? null : diskImages.get(record.getString(ImageRecord.Path));
+                    comparisons.add(file == null ? null
+                            : pool.submit(() -> hasSameContent(record.getBytes(ImageRecord.Data), file)));
                 }
 
+                for (int i = 0; i < records.size(); i++) {
+                    ImageRecord record = records.get(i);
+                    String path = record.getString(ImageRecord.Path);
+                    Future<Boolean> comparison = comparisons.get(i);
+                    if (record.isDirectory()) {
+                        // Folder records may keep the trailing slash of their parent path
+                        String folderPath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+                        if (diskFolders.remove(folderPath) == null) {
+                            deletions.put(folderPath, record);
+                        }
+                    } else if (comparison == null) {
+                        deletions.put(path, record);
+                    } else if (await(comparison)) {
+                        diskImages.remove(path);
+                        unchanged++;
+                    } else {
+                        modified.put(path, record);
+                    }
+                }
+                for (ImageRecord record : deletions.descendingMap().values()) {
+                    record.deleteRecord();
+                }
+                // Modified files stay in diskImages and are inserted again below
+                for (ImageRecord record : modified.values()) {
+                    record.deleteRecord();
+                }
+                session.commit();
+            } finally {
+                session.close();
+            }
+
+            // Sorted paths put parent folders before their content
+            for (String path : diskFolders.keySet()) {
+                int slash = path.lastIndexOf('/');
                 try {
-                    context.getImageManager().insertImage(f.getName(), "", ImageFormat.valueOf(ext), path, bytes, width, height, bytes.length);
+                    context.getImageManager().insertImageFolder(path.substring(slash + 1),
+                            slash > 0 ? path.substring(0, slash + 1) : null);
                 } catch (Exception ex) {
                     logger.error(ex.getMessage(), ex);
                 }
-            } catch (FileNotFoundException e) {
-                logger.error("FileNotFound exception for file: '" + f.getPath() + "'");
-            } catch (IOException e) {
-                logger.error("IOException exception for file: '" + f.getPath() + "'");
-            } catch (Exception e) {
-                throw new RuntimeException(e);
             }
+            insertImages(projectName, diskImages, pool);
+
+            logger.infof("Images of '%s' project imported: %d added, %d updated, %d deleted, %d unchanged, %d folders added",
+                    projectName, diskImages.size() - modified.size(), modified.size(), deletions.size(), unchanged, diskFolders.size());
+        } finally {
+            pool.shutdownNow();
+        }
     }
 
+    /**
+     * Insert image files, read and probed on {@code pool} while the previous ones are written.
+     *
+     * @param images files by path relative to the images folder
+     */
+    private static void insertImages(String projectName, SortedMap<String, Path> images, ExecutorService pool) {
+        long startedAt = System.currentTimeMillis();
+        long bytes = 0;
+        int count = 0;
+        Deque<Future<ImageFile>> readAhead = new ArrayDeque<>();
+        Iterator<Map.Entry<String, Path>> pending = images.entrySet().iterator();
+        while (pending.hasNext() || !readAhead.isEmpty()) {
+            while (pending.hasNext() && readAhead.size() < IMAGE_THREADS * 2) {
+                Map.Entry<String, Path> entry = pending.next();
+                readAhead.add(pool.submit(() -> readImageFile(entry.getKey(), entry.getValue())));
+            }
+            ImageFile image = await(readAhead.poll());
+            if (image != null && insertImage(image)) {
+                bytes += image.data.length;
+                count++;
+            }
+        }
 
-    protected static void uploadFolder(File dir, String path) {
+        long millis = Math.max(System.currentTimeMillis() - startedAt, 1);
+        if (count > 0) {
+            logger.infof("Inserted %d images of '%s' project (%d bytes) in %d ms: %.1f images/s, %.1f KB/s",
+                    count, projectName, bytes, millis, count * 1000.0 / millis, bytes * 1000.0 / 1024 / millis);
+        }
+    }
+
+    /**
+     * Read an image file and the dimensions in its header.
+     *
+     * @return the image, or null if the file cannot be read
+     */
+    private static ImageFile readImageFile(String path, Path file) {
+        String fileName = file.getFileName().toString();
+        String format = fileName.substring(fileName.lastIndexOf(".") + 1).toUpperCase();
         try {
-            context.getImageManager().insertImageFolder(dir.getName(), path.equals("") ? null : path);
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isDirectory()) {
-                        uploadFolder(file, path + dir.getName() + "/");
-                    } else {
-                        uploadFile(file, path + dir.getName() + "/");
-                    }
-                }
-            }
+            byte[] data = Files.readAllBytes(file);
+            return new ImageFile(path, format, data, GitImageDimensions.read(format, data));
+        } catch (IOException e) {
+            logger.error("IOException exception for file: '" + file + "'", e);
+            return null;
+        }
+    }
+
+    private static boolean insertImage(ImageFile image) {
+        int slash = image.path.lastIndexOf('/');
+        String name = image.path.substring(slash + 1);
+        String folder = slash > 0 ? image.path.substring(0, slash + 1) : "";
+        int width = image.dimensions != null ? image.dimensions[0] : 0;
+        int height = image.dimensions != null ? image.dimensions[1] : 0;
+        try {
+            context.getImageManager().insertImage(name, "", ImageFormat.valueOf(image.format), folder,
+                    image.data, width, height, image.data.length);
+            return true;
         } catch (Exception ex) {
             logger.error(ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private static ExecutorService newImagePool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(IMAGE_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "git-image-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
         }
     }
 
+    /**
+     * List the folders and the supported image files below {@code imagesDir}, by path relative to it.
+     */
+    private static void listImageFiles(Path imagesDir, Map<String, Path> folders, Map<String, Path> images) throws IOException {
+        if (!Files.isDirectory(imagesDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(imagesDir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.equals(imagesDir)) {
+                    continue;
+                }
+                String relativePath = imagesDir.relativize(path).toString().replace('\\', '/');
+                if (Files.isDirectory(path)) {
+                    folders.put(relativePath, path);
+                } else if (isSupportedImage(path.getFileName().toString())) {
+                    images.put(relativePath, path);
+                }
+            }
+        }
+    }
+
+    private static boolean isSupportedImage(String fileName) {
+        String lName = fileName.toLowerCase();
+        return lName.endsWith(".png")
+                || lName.endsWith(".gif")
+                || lName.endsWith(".jpg")
+                || lName.endsWith(".jpeg")
+                || lName.endsWith(".svg");
+    }
+
+    /**
+     * Write the gateway images to the {@code images} folder. Files whose size and content hash
+     * already match their record are left untouched, so Git does not need to hash them again; files
+     * and folders without a record are deleted.
+     */
     public static void exportImages(Path projectFolderPath) {
         Path imageFolderPath = projectFolderPath.resolve("images");
-        clearDirectory(imageFolderPath);
         try {
             Files.createDirectories(imageFolderPath);
         } catch (IOException e) {
             logger.error(e.toString(), e);
         }
-        saveFolderImage(imageFolderPath, "");
+
+        Set<Path> exported = new HashSet<>();
+        int[] counts = new int[2];
+        saveFolderImage(imageFolderPath, "", exported, counts);
+
+        int deleted = 0;
+        try {
+            deleted = deleteOtherFiles(imageFolderPath, exported);
+        } catch (IOException e) {
+            logger.error(e.toString(), e);
+        }
+        logger.debugf("Images exported to %s: %d written, %d unchanged, %d deleted",
+                imageFolderPath, counts[0], counts[1], deleted);
     }
 
-    public static void saveFolderImage(Path folderPath, String directory) {
+    /**
+     * @param exported paths of the folders and files matching a record, updated by this call
+     * @param counts   numbers of files written and left unchanged, updated by this call
+     */
+    private static void saveFolderImage(Path folderPath, String directory, Set<Path> exported, int[] counts) {
         ImageManager imageManager = context.getImageManager();
         for (ImageRecord imageRecord : imageManager.getImages(directory)) {
             String path = imageRecord.getString(ImageRecord.Path);
+            Path target = folderPath.resolve(path);
+            exported.add(target);
             if (imageRecord.isDirectory()) {
                 try {
-                    Files.createDirectories(folderPath.resolve(path));
+                    if (!Files.isDirectory(target)) {
+                        Files.deleteIfExists(target);
+                        Files.createDirectories(target);
+                    }
                 } catch (IOException e) {
                     logger.error(e.toString(), e);
                 }
 
-                saveFolderImage(folderPath, path);
+                saveFolderImage(folderPath, path, exported, counts);
             } else {
                 byte[] data = imageManager.getImage(path).getBytes(ImageRecord.Data);
 
                 try {
-                    Files.write(folderPath.resolve(path), data);
+                    if (Files.isRegularFile(target) && hasSameContent(data, target)) {
+                        counts[1]++;
+                    } else {
+                        Files.write(target, data);
+                        counts[0]++;
+                    }
                 } catch (IOException e) {
                     logger.error(e.toString(), e);
                 }
             }
         }
     }
-}
 
-class PathIcon extends ImageIcon {
-    protected static final Component COMP = new Component() {
-    };
-    private static MediaTracker tracker;
-    private static int nextId;
-    public static boolean waitForImage(Image image) {
-        if (image == null) {
-            return false;
-        } else if (image instanceof BufferedImage) {
-            return true;
-        } else {
-            int id;
-            synchronized(COMP) {
-                id = nextId++;
-            }
+    private static class ImageFile {
+        private final String path;
+        private final String format;
+        private final byte[] data;
+        /** {width, height}, or null if they could not be read. */
+        private final int[] dimensions;
 
-            tracker.addImage(image, id);
-
-            try {
-                tracker.waitForID(id);
-            } catch (InterruptedException var4) {
-                System.err.println("Image loading interrupted!");
-                return false;
-            }
-
-            boolean success = !tracker.isErrorID(id);
-            tracker.removeImage(image, id);
-            return success;
+        ImageFile(String path, String format, byte[] data, int[] dimensions) {
+            this.path = path;
+            this.format = format;
+            this.data = data;
+            this.dimensions = dimensions;
         }
     }
-
-    static {
-        tracker = new MediaTracker(COMP);
-        nextId = 0;
-    }
 }
@@ -0,0 +1,194 @@
+package com.operametrix.ignition.git.managers;
+
+import com.operametrix.ignition.git.GitJobStatus;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long Git operations (pull and the imports that follow it) run as jobs: the RPC returns a job id
+ * right away and the caller polls {@link #getStatus(String)} for the phase and the number of
+ * resources and bytes processed.
+ * <p>
+ * Jobs run in the project's queue of {@link GitTaskManager}. Code running inside a job reports
+ * progress and checks for cancellation through {@link #current()}; cancellation is only honored at
+ * those checkpoints, never in the middle of a Git command or of a change pushed to the project.
+ * Once a job has changed something that must be completed, such as a working tree rewritten by a
+ * pull that the project must be imported from, it enters a phase with
+ * {@link #setUncancellablePhase(String)}: later checkpoints no longer stop it, and the job only
+ * reads {@link #isCancelRequested()} to skip what remains optional. Finished jobs are kept
+ * {@link #RETENTION_MS}.
+ */
+public class GitJobManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitJobManager.class);
+
+    public static final long RETENTION_MS = Long.getLong("ignition.git.jobRetentionMs", 10 * 60 * 1000L);
+
+    private static final Map<String, GitJob> jobs = new ConcurrentHashMap<>();
+    private static final ThreadLocal<GitJob> currentJob = new ThreadLocal<>();
+
+    /** Body of a job, given the job to report its progress. */
+    public interface JobBody {
+        void run(GitJob job) throws Exception;
+    }
+
+    /**
+     * Queue a job in the serial queue of a project.
+     *
+     * @return the job id, to be given to {@link #getStatus(String)} and {@link #cancel(String)}
+     * @throws RuntimeException if the project or gateway queue is full
+     */
+    public static String submit(String projectName, String operationName, JobBody body) {
+        purgeFinished();
+        GitJob job = new GitJob(UUID.randomUUID().toString(), projectName, operationName);
+        jobs.put(job.jobId, job);
+        try {
+            GitTaskManager.submit(projectName, operationName, () -> {
+                job.run(body);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            jobs.remove(job.jobId);
+            throw e;
+        }
+        return job.jobId;
+    }
+
+    /** Status of a job, or null if it is unknown or was purged. */
+    public static GitJobStatus getStatus(String jobId) {
+        GitJob job = jobs.get(jobId);
+        return job != null ? job.toStatus() : null;
+    }
+
+    /**
+     * Request the cancellation of a job. A queued job does not start; a running job stops at its
+     * next checkpoint.
+     *
+     * @return false if the job is unknown or already finished
+     */
+    public static boolean cancel(String jobId) {
+        GitJob job = jobs.get(jobId);
+        if (job == null || job.finishedAt != 0) {
+            return false;
+        }
+        job.cancelled = true;
+        return true;
+    }
+
+    /** The job running in the current thread, or null outside of a job. */
+    public static GitJob current() {
+        return currentJob.get();
+    }
+
+    /**
+     * Set the phase of the job running in the current thread, if any.
+     *
+     * @throws CancellationException if the cancellation of that job was requested
+     */
+    public static void setPhase(String phase) {
+        GitJob job = current();
+        if (job != null) {
+            job.setPhase(phase);
+        }
+    }
+
+    /**
+     * Set the phase of the job running in the current thread, if any, and stop honoring its
+     * cancellation from now on.
+     */
+    public static void setUncancellablePhase(String phase) {
+        GitJob job = current();
+        if (job != null) {
+            job.cancellable = false;
+            job.phase = phase;
+            logger.debugf("Job %s (%s on '%s'): %s", job.jobId, job.operation, job.projectName, phase);
+        }
+    }
+
+    /** Whether the cancellation of the job running in the current thread was requested. */
+    public static boolean isCancelRequested() {
+        GitJob job = current();
+        return job != null && job.cancelled;
+    }
+
+    private static void purgeFinished() {
+        long limit = System.currentTimeMillis() - RETENTION_MS;
+        jobs.values().removeIf(job -> job.finishedAt != 0 && job.finishedAt < limit);
+    }
+
+    public static class GitJob {
+        private final String jobId;
+        private final String projectName;
+        private final String operation;
+        private final AtomicLong resources = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile String state = GitJobStatus.QUEUED;
+        private volatile String phase = "";
+        private volatile String message;
+        private volatile boolean cancelled;
+        private volatile boolean cancellable = true;
+        /** When the body started, once the job left the project queue; 0 while queued. */
+        private volatile long startedAt;
+        private volatile long finishedAt;
+
+        GitJob(String jobId, String projectName, String operation) {
+            this.jobId = jobId;
+            this.projectName = projectName;
+            this.operation = operation;
+        }
+
+        public void setPhase(String phase) {
+            checkCancelled();
+            this.phase = phase;
+            logger.debugf("Job %s (%s on '%s'): %s", jobId, operation, projectName, phase);
+        }
+
+        /** Safe to call from any thread, e.g. the import loader threads. */
+        public void addProgress(long resourceCount, long byteCount) {
+            resources.addAndGet(resourceCount);
+            bytes.addAndGet(byteCount);
+        }
+
+        /**
+         * @throws CancellationException if the cancellation of the job was requested while it can
+         *                               still be cancelled
+         */
+        public void checkCancelled() {
+            if (cancelled && cancellable) {
+                // No message: the job stopped before changing anything
+                throw new CancellationException();
+            }
+        }
+
+        private void run(JobBody body) {
+            currentJob.set(this);
+            try {
+                checkCancelled();
+                startedAt = System.currentTimeMillis();
+                state = GitJobStatus.RUNNING;
+                body.run(this);
+                state = GitJobStatus.DONE;
+            } catch (CancellationException e) {
+                message = e.getMessage();
+                state = GitJobStatus.CANCELLED;
+                logger.infof("%s on project '%s' was cancelled during '%s'", operation, projectName, phase);
+            } catch (Exception e) {
+                message = e.getMessage() != null ? e.getMessage() : e.toString();
+                state = GitJobStatus.FAILED;
+                logger.error(operation + " on project '" + projectName + "' failed", e);
+            } finally {
+                finishedAt = System.currentTimeMillis();
+                currentJob.remove();
+            }
+        }
+
+        GitJobStatus toStatus() {
+            return new GitJobStatus(jobId, projectName, operation, state, phase, resources.get(), bytes.get(),
+                    message, startedAt, finishedAt);
+        }
+    }
+}
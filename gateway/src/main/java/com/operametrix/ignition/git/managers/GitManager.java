@@ -14,7 +14,6 @@ import com.inductiveautomation.ignition.common.project.resource.ResourcePath;
 import com.inductiveautomation.ignition.common.project.resource.ResourceType;
 import com.inductiveautomation.ignition.common.util.DatasetBuilder;
 import com.inductiveautomation.ignition.common.util.LoggerEx;
-import com.inductiveautomation.ignition.gateway.project.ProjectManager;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.lib.*;
@@ -32,25 +31,34 @@ import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import simpleorm.dataset.SQuery;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 import static com.operametrix.ignition.git.GatewayHook.context;
@@ -58,9 +66,13 @@ import static com.operametrix.ignition.git.GatewayHook.context;
 public class GitManager {
     private final static LoggerEx logger = LoggerEx.newBuilder().build(GitManager.class);
 
+    /**
+     * Borrow the project's shared repository from {@link GitRepositoryManager}.
+     * Always close the returned {@link Git}, never its {@link Repository}.
+     */
     static public Git getGit(Path projectFolderPath) {
         try {
-            return Git.open(projectFolderPath.resolve(".git").toFile());
+            return GitRepositoryManager.acquire(projectFolderPath);
         } catch (IOException e) {
             logger.error("Unable to retrieve Git repository", e);
             throw new RuntimeException(e);
@@ -87,6 +99,49 @@ public class GitManager {
         }
     }
 
+    /**
+     * Whether {@code file} holds exactly {@code data}. Sizes are compared first; the file is only
+     * read, as a stream, when they are equal.
+     */
+    public static boolean hasSameContent(byte[] data, Path file) throws IOException {
+        if (data == null || Files.size(file) != data.length) {
+            return false;
+        }
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return MessageDigest.isEqual(digest.digest(), newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Delete the files and folders below {@code folder} that are not in {@code kept}. The parent
+     * folders of the kept files must be kept as well.
+     *
+     * @return the number of files and folders deleted
+     */
+    public static int deleteOtherFiles(Path folder, Set<Path> kept) throws IOException {
+        List<Path> stale;
+        try (Stream<Path> paths = Files.walk(folder)) {
+            // Reverse order lists the content of a folder before the folder itself
+            stale = paths.filter(path -> !path.equals(folder) && !kept.contains(path))
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+        for (Path path : stale) {
+            Files.deleteIfExists(path);
+        }
+        return stale.size();
+    }
+
     /**
      * Set authentication on a transport command using per-remote credentials.
      * Auth type (SSH vs HTTPS) is determined from the remote's URL in .git/config.
@@ -155,33 +210,43 @@ public class GitManager {
         return count;
     }
 
-    public static void uncommittedChangesBuilder(String projectName,
+    /**
+     * Add one row per changed resource to {@code builder}. Files of a resource folder are reported
+     * as the folder itself, and a resource already present in {@code changes} is skipped.
+     *
+     * @param project the runtime project used to read the last modification, may be null
+     */
+    public static void uncommittedChangesBuilder(RuntimeProject project,
                                                  Set<String> updates,
                                                  String type,
-                                                 List<String> changes,
+                                                 Set<String> changes,
                                                  DatasetBuilder builder) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
         for (String update : updates) {
-            String[] rowData = new String[4];
-            String actor = "unknown";
-            String timestamp = "";
             String path = update;
-
-            if (hasActor(path)) {
-                String[] pathSplitted = update.split("/");
-                path = String.join("/", Arrays.copyOf(pathSplitted, pathSplitted.length - 1));
-
-                actor = getActor(projectName, path);
-                timestamp = getTimestamp(projectName, path);
+            boolean hasActor = hasActor(path);
+            if (hasActor) {
+                path = update.substring(0, Math.max(update.lastIndexOf('/'), 0));
+            }
+            if (!changes.add(path)) {
+                continue;
             }
 
-            rowData[0] = path;
-            rowData[1] = type;
-            if (!changes.contains(path)) {
-                rowData[2] = actor;
-                rowData[3] = timestamp;
-                changes.add(path);
-                builder.addRow((Object[]) rowData);
+            String actor = "unknown";
+            String timestamp = "";
+            if (hasActor && project != null) {
+                Optional<LastModification> lastModification = getLastModification(project, path);
+                if (lastModification.isPresent()) {
+                    LastModification modification = lastModification.get();
+                    if (modification.getActor() != null) {
+                        actor = modification.getActor();
+                    }
+                    if (modification.getTimestamp() != null) {
+                        timestamp = dateFormat.format(modification.getTimestamp());
+                    }
+                }
             }
+            builder.addRow(path, type, actor, timestamp);
         }
     }
 
@@ -199,50 +264,15 @@ public class GitManager {
         return hasActor;
     }
 
-    public static String getTimestamp(String projectName, String path) {
-        ProjectManager projectManager = context.getProjectManager();
-        Optional<RuntimeProject> projectOpt = projectManager.getProject(projectName);
-
-        if (projectOpt.isPresent()) {
-            RuntimeProject project = projectOpt.get();
-            Optional<ProjectResource> resourceOpt = project.getResource(getResourcePath(path));
-
-            if (resourceOpt.isPresent()) {
-                ProjectResource projectResource = resourceOpt.get();
-                return LastModification.of(projectResource)
-                        .map(LastModification::getTimestamp)
-                        .map(date -> new SimpleDateFormat("yyyy-MM-dd HH:mm").format(date))
-                        .orElse("");
-            }
-        }
-
-        return "";
-    }
-
-    public static String getActor(String projectName, String path) {
-        ProjectManager projectManager = context.getProjectManager();
-        Optional<RuntimeProject> projectOpt = projectManager.getProject(projectName);
-
-        if (projectOpt.isPresent()) {
-            RuntimeProject project = projectOpt.get();
-            Optional<ProjectResource> resourceOpt = project.getResource(getResourcePath(path));
-
-            if (resourceOpt.isPresent()) {
-                ProjectResource projectResource = resourceOpt.get();
-                return LastModification.of(projectResource).map(LastModification::getActor).orElse("unknown");
-            }
-        }
-
-        return "unknown";
+    public static Optional<LastModification> getLastModification(RuntimeProject project, String path) {
+        return project.getResource(getResourcePath(path)).flatMap(LastModification::of);
     }
 
     public static List getAddedFiles(String projectName) {
         List<String> fileList = new ArrayList<>();
-        Git git = getGit(getProjectFolderPath(projectName));
-        try {
+        try (Git git = getGit(getProjectFolderPath(projectName))) {
             Status status = git.status().call();
             fileList.addAll(status.getAdded());
-            git.close();
         } catch (Exception e) {
             logger.info(e.toString(), e);
             throw new RuntimeException(e);
@@ -253,6 +283,7 @@ public class GitManager {
     public static void cloneRepo(String projectName, String userName, String URI, String branchName) {
         File projectDirFile = getProjectFolderPath(projectName).toFile();
         if (projectDirFile.exists()) {
+            GitRepositoryManager.invalidate(projectDirFile.toPath());
             try (Git git = Git.init().setDirectory(projectDirFile).call()) {
                 disableSsl(git);
 
@@ -287,14 +318,21 @@ public class GitManager {
 
 
     public static ResourcePath getResourcePath(String resourcePath) {
-        String moduleId = "";
+        String moduleId = resourcePath;
         String typeId = "";
         String resource = "";
-        String[] paths = resourcePath.split("/");
 
-        if (paths.length > 0) moduleId = paths[0];
-        if (paths.length > 1) typeId = paths[1];
-        if (paths.length > 2) resource = resourcePath.replace(moduleId + "/" + typeId + "/", "");
+        int moduleEnd = resourcePath.indexOf('/');
+        if (moduleEnd >= 0) {
+            moduleId = resourcePath.substring(0, moduleEnd);
+            int typeEnd = resourcePath.indexOf('/', moduleEnd + 1);
+            if (typeEnd >= 0) {
+                typeId = resourcePath.substring(moduleEnd + 1, typeEnd);
+                resource = resourcePath.substring(typeEnd + 1);
+            } else {
+                typeId = resourcePath.substring(moduleEnd + 1);
+            }
+        }
 
         return new ResourcePath(new ResourceType(moduleId, typeId), resource);
     }
@@ -307,10 +345,19 @@ public class GitManager {
 
     public static boolean isUpdatedResource(String projectName, String resourcePath){
         boolean isUpdatedResource;
+        try {
+            // A path the status engine reports as clean cannot differ from HEAD
+            if (!GitStatusManager.getStatus(projectName).getUncommittedChanges().contains(resourcePath)) {
+                return false;
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to get cached status, comparing with HEAD", e);
+        }
         Path projectPath = getProjectFolderPath(projectName);
         String filePath = projectPath.toAbsolutePath() + "\\" +resourcePath.replace("/", "\\");
 
-        try (Repository repository = getGit(projectPath).getRepository()) {
+        try (Git git = getGit(projectPath)) {
+            Repository repository = git.getRepository();
 
             // Get the ObjectId of the latest commit
             ObjectId headId = repository.resolve("HEAD");
@@ -412,6 +459,47 @@ public class GitManager {
         }
     }
 
+    /**
+     * Commit currently checked out, or null if the repository has no commit yet.
+     */
+    public static ObjectId getHead(Path projectFolderPath) throws IOException {
+        try (Git git = getGit(projectFolderPath)) {
+            return git.getRepository().resolve(Constants.HEAD);
+        }
+    }
+
+    /**
+     * List the files whose content differs between the tree of {@code oldHead} and the tree of the
+     * commit currently checked out.
+     *
+     * @return repository-relative paths, or null if one of the two commits does not exist
+     */
+    public static Set<String> getChangedPaths(Path projectFolderPath, ObjectId oldHead) throws IOException {
+        try (Git git = getGit(projectFolderPath)) {
+            Repository repository = git.getRepository();
+            ObjectId newHead = repository.resolve(Constants.HEAD);
+            if (oldHead == null || newHead == null) {
+                return null;
+            }
+
+            Set<String> paths = new HashSet<>();
+            if (oldHead.equals(newHead)) {
+                return paths;
+            }
+            try (RevWalk revWalk = new RevWalk(repository);
+                 TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(revWalk.parseCommit(oldHead).getTree());
+                treeWalk.addTree(revWalk.parseCommit(newHead).getTree());
+                treeWalk.setRecursive(true);
+                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                while (treeWalk.next()) {
+                    paths.add(treeWalk.getPathString());
+                }
+            }
+            return paths;
+        }
+    }
+
     public static boolean createBranch(Path projectFolderPath, String branchName, String startPoint) throws Exception {
         try (Git git = getGit(projectFolderPath)) {
             CreateBranchCommand command = git.branchCreate().setName(branchName);
@@ -525,7 +613,8 @@ public class GitManager {
         }
 
         // Read old content from HEAD
-        try (Repository repository = getGit(projectPath).getRepository()) {
+        try (Git git = getGit(projectPath)) {
+            Repository repository = git.getRepository();
             ObjectId headId = repository.resolve("HEAD");
             if (headId != null) {
                 try (RevWalk revWalk = new RevWalk(repository)) {
@@ -656,8 +745,8 @@ public class GitManager {
      */
     public static List<String> getCommitFileList(Path projectFolderPath, String commitHash) {
         List<String> files = new ArrayList<>();
-        try (Git git = getGit(projectFolderPath);
-             Repository repository = git.getRepository()) {
+        try (Git git = getGit(projectFolderPath)) {
+            Repository repository = git.getRepository();
 
             ObjectId commitId = repository.resolve(commitHash);
             try (RevWalk revWalk = new RevWalk(repository)) {
@@ -702,8 +791,8 @@ public class GitManager {
         String oldContent = "";
         String newContent = "";
 
-        try (Git git = getGit(projectFolderPath);
-             Repository repository = git.getRepository()) {
+        try (Git git = getGit(projectFolderPath)) {
+            Repository repository = git.getRepository();
 
             ObjectId commitId = repository.resolve(commitHash);
             try (RevWalk revWalk = new RevWalk(repository)) {
@@ -759,14 +848,16 @@ public class GitManager {
      * Tracked (modified/deleted) files are checked out from HEAD.
      * Untracked (created) files are deleted via git clean.
      *
-     * @param projectFolderPath path to the git working directory
-     * @param paths             list of resource paths to discard
+     * The untracked set comes from {@link GitStatusManager}, so no full working-tree scan is
+     * needed when the project is watched.
+     *
+     * @param projectName the Ignition project name
+     * @param paths       list of resource paths to discard
      * @return true if discard succeeded
      */
-    public static boolean discardChanges(Path projectFolderPath, List<String> paths) {
-        try (Git git = getGit(projectFolderPath)) {
-            Status status = git.status().call();
-            Set<String> untracked = status.getUntracked();
+    public static boolean discardChanges(String projectName, List<String> paths) {
+        try (Git git = getGit(getProjectFolderPath(projectName))) {
+            Set<String> untracked = GitStatusManager.getStatus(projectName).getUntracked();
 
             List<String> trackedPaths = new ArrayList<>();
             Set<String> untrackedPaths = new HashSet<>();
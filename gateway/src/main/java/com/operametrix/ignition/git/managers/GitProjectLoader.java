@@ -0,0 +1,165 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.project.resource.ProjectResource;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the resource folders of a project folder.
+ * <p>
+ * The folder is walked once with {@link Files#walkFileTree}. Top-level folders that do not hold
+ * project resources ({@code .git}, {@code tags}, {@code images}, {@code themes}) are skipped without
+ * being visited. File names are grouped by directory during the walk, and each directory is handed
+ * to a {@link FolderReader} on a pool of {@link #LOADER_THREADS} threads as soon as the walk leaves
+ * it, so only the folders being read are held in memory as raw bytes. The first folder that fails
+ * stops the walk and the folders not read yet are skipped.
+ */
+public class GitProjectLoader {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitProjectLoader.class);
+
+    public static final int LOADER_THREADS = Integer.getInteger("ignition.git.importThreads",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Builds the resource stored in one directory of the project folder.
+     */
+    public interface FolderReader {
+        /**
+         * @param resourcePath path of the directory relative to the project folder, '/' separated
+         * @param folder       the directory
+         * @param fileNames    names of the regular files directly inside the directory
+         * @return the resource, or null if the directory does not define one
+         */
+        ProjectResource read(String resourcePath, Path folder, List<String> fileNames) throws IOException;
+    }
+
+    /**
+     * Read every non-empty directory below {@code projectPath} and pass the resources built by
+     * {@code reader}, with their path, to {@code consumer}, from the loader threads and in no
+     * particular order. Returns once every directory is read, or throws the first error raised by
+     * {@code reader} or {@code consumer}.
+     */
+    public static void load(Path projectPath, FolderReader reader, BiConsumer<String, ProjectResource> consumer) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "git-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(LOADER_THREADS, threadFactory);
+        List<Future<?>> pending = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        long startedAt = System.currentTimeMillis();
+
+        try {
+            Files.walkFileTree(projectPath, new SimpleFileVisitor<Path>() {
+                private final Deque<Directory> directories = new ArrayDeque<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (failed.get()) {
+                        return FileVisitResult.TERMINATE;
+                    }
+                    String resourcePath = toResourcePath(projectPath, dir);
+                    if (!resourcePath.isEmpty() && !GitProjectManager.isAnIgnitionResource(resourcePath)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (!directories.isEmpty()) {
+                        directories.peek().hasSubdirectories = true;
+                    }
+                    directories.push(new Directory(resourcePath));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        directories.peek().fileNames.add(file.getFileName().toString());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    if (exc != null) {
+                        throw exc;
+                    }
+                    Directory directory = directories.pop();
+                    // Files at the root (project.json...) are not resources, neither are empty directories
+                    if (!directory.resourcePath.isEmpty()
+                            && (directory.hasSubdirectories || !directory.fileNames.isEmpty())) {
+                        pending.add(pool.submit(() -> {
+                            if (failed.get()) {
+                                return null;
+                            }
+                            try {
+                                ProjectResource resource = reader.read(directory.resourcePath, dir, directory.fileNames);
+                                if (resource != null) {
+                                    consumer.accept(directory.resourcePath, resource);
+                                }
+                            } catch (Exception e) {
+                                failed.set(true);
+                                throw e;
+                            }
+                            return null;
+                        }));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + projectPath, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        logger.debugf("Read %d folders of %s in %d ms", pending.size(), projectPath,
+                System.currentTimeMillis() - startedAt);
+    }
+
+    private static String toResourcePath(Path projectPath, Path path) {
+        return projectPath.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static class Directory {
+        private final String resourcePath;
+        private final List<String> fileNames = new ArrayList<>();
+        private boolean hasSubdirectories;
+
+        Directory(String resourcePath) {
+            this.resourcePath = resourcePath;
+        }
+    }
+}
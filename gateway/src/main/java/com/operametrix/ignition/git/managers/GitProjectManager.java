@@ -2,20 +2,38 @@ package com.operametrix.ignition.git.managers;
 
 import com.inductiveautomation.ignition.common.StringPath;
 import com.inductiveautomation.ignition.common.gson.JsonSyntaxException;
+import com.inductiveautomation.ignition.common.project.ChangeOperation;
 import com.inductiveautomation.ignition.common.project.ProjectInvalidException;
 import com.inductiveautomation.ignition.common.project.ProjectManifest;
+import com.inductiveautomation.ignition.common.project.RuntimeProject;
 import com.inductiveautomation.ignition.common.project.resource.*;
 import com.inductiveautomation.ignition.common.util.LoggerEx;
 import com.inductiveautomation.ignition.gateway.project.ProjectManager;
-import org.apache.commons.lang3.StringUtils;
+import com.operametrix.ignition.git.ImportPlan;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ObjectStream;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.operametrix.ignition.git.GatewayHook.context;
 import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderPath;
@@ -23,133 +41,689 @@ import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderP
 public class GitProjectManager {
     private final static LoggerEx logger = LoggerEx.newBuilder().build(GitProjectManager.class);
 
+    /** Above this many changed resource folders, a full import is used instead of an incremental one. */
+    public static final int MAX_INCREMENTAL_RESOURCES = Integer.getInteger("ignition.git.maxIncrementalImport", 1000);
+    /** Above this many bytes of resource data, a full import is applied to an existing project in batches. */
+    public static final long IMPORT_HEAP_BUDGET = Long.getLong("ignition.git.importHeapBudget", 128L * 1024 * 1024);
+
+    private static final AtomicLong peakImportBytes = new AtomicLong();
+    /** Moving average of the import duration per resource, used to estimate import plans. */
+    private static volatile double millisPerResource = 2.0;
+
     public static void importProject(String projectName) {
         ProjectManager projectManager = context.getProjectManager();
         Path projectDir = getProjectFolderPath(projectName);
 
         try {
-            Set<ProjectResource> resources = importFromFolder(projectDir, projectName);
+            long startedAt = System.currentTimeMillis();
             ProjectManifest projectManifest = loadProjectManifest(projectDir);
-            projectManager.createOrReplaceProject(projectName, projectManifest, new ArrayList(resources));
+            RuntimeProject project = projectManager.getProject(projectName).orElse(null);
+            ImportBatcher batcher = new ImportBatcher(projectName, projectDir, project);
+            GitProjectLoader.load(projectDir,
+                    (resourcePath, folder, fileNames) -> readFolder(projectName, resourcePath, folder, fileNames),
+                    batcher::add);
+            batcher.finish(projectManifest);
+            recordImportDuration(batcher.resourceCount, System.currentTimeMillis() - startedAt);
 
-        } catch (ProjectInvalidException | IOException e) {
+        } catch (CancellationException e) {
+            throw e;
+        } catch (Exception e) {
             logger.error("An error occurred while importing '" + projectName + "' project.", e);
             throw new RuntimeException(e);
         }
     }
 
-    public static Set<Map.Entry<String, byte[]>> listFiles(Path projectPath) {
-        Set<Map.Entry<String, byte[]>> resources = new HashSet<>();
-        Stack<File> stack = new Stack<>();
-        File directory = projectPath.toFile();
+    /** Largest amount of resource data held at once by a full import since the gateway started. */
+    public static long getPeakImportBytes() {
+        return peakImportBytes.get();
+    }
+
+    /**
+     * Replace the gateway project with the content of a commit, read straight from the repository
+     * objects, without line ending conversion. HEAD does not move, but the gateway saves the project
+     * into its folder, which is the working tree: the differences with HEAD then show up as
+     * uncommitted changes. Only project resources are deployed, not tags, themes or images.
+     *
+     * @param revision commit hash, branch or any revision understood by Git
+     * @throws RuntimeException if project resources have uncommitted changes, which would be overwritten
+     */
+    public static void importCommit(String projectName, String revision) {
+        ProjectManager projectManager = context.getProjectManager();
+        Path projectDir = getProjectFolderPath(projectName);
+
+        GitStatusManager.markAllDirty(projectName);
+        Set<String> dirtyPaths;
+        try {
+            dirtyPaths = getDirtyPaths(projectName);
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to read the status of '" + projectName + "' project.", e);
+        }
+        if (dirtyPaths.stream().anyMatch(path -> path.equals("project.json") || isAnIgnitionResource(path))) {
+            throw new RuntimeException("Project '" + projectName + "' has uncommitted changes. "
+                    + "Commit or discard them before deploying a commit.");
+        }
+
+        try (Git git = GitManager.getGit(projectDir);
+             RevWalk revWalk = new RevWalk(git.getRepository())) {
+            ObjectId commitId = git.getRepository().resolve(revision);
+            if (commitId == null) {
+                throw new RuntimeException("Commit not found: " + revision);
+            }
+            RevTree tree = revWalk.parseCommit(commitId).getTree();
+
+            try (ObjectReader reader = git.getRepository().newObjectReader()) {
+                List<ProjectResource> resources = importFromTree(reader, tree, projectName);
+                ProjectManifest projectManifest = loadProjectManifest(reader, tree);
+                projectManager.createOrReplaceProject(projectName, projectManifest, resources);
+            }
+        } catch (ProjectInvalidException | IOException e) {
+            logger.error("An error occurred while importing commit '" + revision + "' into '" + projectName + "' project.", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Build the resources stored in a Git tree. Blobs are streamed from the object database and
+     * only resource.json and the files it lists are read. Directories are read in parallel on a
+     * fork/join pool of {@link GitProjectLoader#LOADER_THREADS} threads; resources are returned in
+     * tree order.
+     */
+    public static List<ProjectResource> importFromTree(ObjectReader reader, RevTree tree, String projectName) throws IOException {
+        // Git does not store empty directories: every directory listed here holds at least one file
+        Map<String, Map<String, ObjectId>> directories = new LinkedHashMap<>();
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(tree);
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                if (treeWalk.isSubtree()) {
+                    if (isAnIgnitionResource(path)) {
+                        directories.put(path, new HashMap<>());
+                        treeWalk.enterSubtree();
+                    }
+                    continue;
+                }
+                int slash = path.lastIndexOf('/');
+                FileMode mode = treeWalk.getFileMode(0);
+                if (slash > 0 && (mode == FileMode.REGULAR_FILE || mode == FileMode.EXECUTABLE_FILE)) {
+                    directories.get(path.substring(0, slash)).put(path.substring(slash + 1), treeWalk.getObjectId(0));
+                }
+            }
+        }
+
+        List<Map.Entry<String, Map<String, ObjectId>>> entries = new ArrayList<>(directories.entrySet());
+        ProjectResource[] resources = new ProjectResource[entries.size()];
+        ForkJoinPool pool = new ForkJoinPool(GitProjectLoader.LOADER_THREADS);
+        try {
+            pool.invoke(new TreeReadTask(reader, projectName, entries, resources, 0, entries.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(resources);
+    }
+
+    /**
+     * Reads a range of tree directories, splitting it in halves down to {@link #THRESHOLD} directories.
+     * Each leaf uses its own ObjectReader, which cannot be shared between threads.
+     */
+    private static class TreeReadTask extends RecursiveAction {
+        private static final int THRESHOLD = 64;
+
+        private final ObjectReader reader;
+        private final String projectName;
+        private final List<Map.Entry<String, Map<String, ObjectId>>> directories;
+        private final ProjectResource[] resources;
+        private final int from;
+        private final int to;
 
-        stack.push(directory);
+        TreeReadTask(ObjectReader reader, String projectName, List<Map.Entry<String, Map<String, ObjectId>>> directories,
+                     ProjectResource[] resources, int from, int to) {
+            this.reader = reader;
+            this.projectName = projectName;
+            this.directories = directories;
+            this.resources = resources;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TreeReadTask(reader, projectName, directories, resources, from, middle),
+                        new TreeReadTask(reader, projectName, directories, resources, middle, to));
+                return;
+            }
+            try (ObjectReader leafReader = reader.newReader()) {
+                for (int i = from; i < to; i++) {
+                    StringPath stringPath = StringPath.parse(directories.get(i).getKey());
+                    ProjectResource resource = readResource(leafReader, projectName, stringPath, directories.get(i).getValue());
+                    resources[i] = resource != null ? resource : newFolderResource(projectName, stringPath);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 
-        while (!stack.empty()) {
-            File current = stack.pop();
+    /**
+     * Compute what importing {@code revision} would change in the gateway project, without importing
+     * anything. The plan covers the same paths as {@link #importChanges} after the pull: the files
+     * that differ between the checked out commit and the revision, compared through the revision
+     * tree, and the uncommitted files, whose resources are read from the working tree and compared
+     * with the live project. Only the project's own resources are counted, not inherited ones.
+     *
+     * @param revision commit hash, branch or any revision understood by Git, e.g. {@code origin/main}
+     *                 after a fetch to plan a pull
+     */
+    public static ImportPlan planImport(String projectName, String revision) throws Exception {
+        RuntimeProject project = context.getProjectManager().getProject(projectName).orElse(null);
+        Path projectDir = getProjectFolderPath(projectName);
+        Set<String> dirtyPaths = getDirtyPaths(projectName);
 
-            File[] files = current.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isDirectory()) {
-                        stack.push(file);
+        try (Git git = GitManager.getGit(projectDir);
+             RevWalk revWalk = new RevWalk(git.getRepository());
+             ObjectReader reader = git.getRepository().newObjectReader();
+             TreeWalk treeWalk = new TreeWalk(reader)) {
+            Repository repository = git.getRepository();
+            ObjectId targetId = repository.resolve(revision);
+            if (targetId == null) {
+                throw new RuntimeException("Commit not found: " + revision);
+            }
+            RevTree targetTree = revWalk.parseCommit(targetId).getTree();
+            ObjectId headId = repository.resolve(Constants.HEAD);
+            if (headId != null) {
+                treeWalk.addTree(revWalk.parseCommit(headId).getTree());
+            } else {
+                treeWalk.addTree(new EmptyTreeIterator());
+            }
+            treeWalk.addTree(targetTree);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+            boolean manifestChanged = dirtyPaths.contains("project.json");
+            long bytesToLoad = 0;
+            Set<String> folders = new TreeSet<>();
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                if (path.equals("project.json")) {
+                    manifestChanged = true;
+                }
+                int slash = path.lastIndexOf('/');
+                if (!isAnIgnitionResource(path) || slash < 0 || path.indexOf('/') == slash) {
+                    continue;
+                }
+                folders.add(path.substring(0, slash));
+                if (treeWalk.getFileMode(1) != FileMode.MISSING) {
+                    bytesToLoad += reader.getObjectSize(treeWalk.getObjectId(1), Constants.OBJ_BLOB);
+                }
+            }
+
+            // Resources only touched by uncommitted files keep their working tree content through the pull
+            Set<String> dirtyFolders = new TreeSet<>();
+            for (String path : dirtyPaths) {
+                if (!isAnIgnitionResource(path)) {
+                    continue;
+                }
+                String folder;
+                if (project != null) {
+                    folder = toResourceFolder(project, projectName, projectDir, path);
+                } else {
+                    int slash = path.lastIndexOf('/');
+                    folder = slash > 0 && path.indexOf('/') != slash ? path.substring(0, slash) : null;
+                }
+                if (folder != null && !folders.contains(folder)) {
+                    dirtyFolders.add(folder);
+                }
+            }
+
+            int added = 0;
+            int changed = 0;
+            int removed = 0;
+            for (String folder : folders) {
+                boolean inProject = project != null && getOwnResource(project, projectName, folder) != null;
+                boolean inRevision;
+                try (TreeWalk folderWalk = TreeWalk.forPath(reader, folder, targetTree)) {
+                    inRevision = folderWalk != null;
+                }
+                if (inRevision) {
+                    if (inProject) {
+                        changed++;
                     } else {
-                        try {
-                            String path = file.getAbsolutePath().replace(projectPath.toFile().getAbsolutePath(), "");
-                            path = path.substring(1);
-                            path = path.replace("\\", "/");
-                            resources.add(new AbstractMap.SimpleEntry<>(path, Files.readAllBytes(file.toPath())));
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
+                        added++;
                     }
+                } else if (inProject) {
+                    removed++;
                 }
             }
+            for (String folder : dirtyFolders) {
+                ProjectResource existing = project != null ? getOwnResource(project, projectName, folder) : null;
+                Path folderPath = projectDir.resolve(folder);
+                if (!Files.isDirectory(folderPath)) {
+                    if (existing != null) {
+                        removed++;
+                    }
+                    continue;
+                }
+                ProjectResource resource;
+                try {
+                    resource = readResource(projectName, StringPath.parse(folder), folderPath);
+                } catch (IOException e) {
+                    // The import would stop on this resource, count it as a change
+                    changed++;
+                    continue;
+                }
+                if (existing == null) {
+                    added++;
+                } else if (resource != null && !isSameResource(existing, resource)) {
+                    changed++;
+                } else {
+                    continue;
+                }
+                bytesToLoad += resource != null ? dataSize(resource) : 0;
+            }
+
+            int changedFolders = folders.size() + dirtyFolders.size();
+            boolean fullImport = project == null || manifestChanged || changedFolders > MAX_INCREMENTAL_RESOURCES;
+            int resourceCount = changedFolders;
+            if (fullImport && project != null) {
+                int ownResources = 0;
+                for (ProjectResource resource : project.getResources()) {
+                    if (projectName.equals(resource.getProjectName())) {
+                        ownResources++;
+                    }
+                }
+                resourceCount = ownResources + added;
+            }
+            long estimatedMillis = Math.round(resourceCount * millisPerResource);
+            return new ImportPlan(targetId.name(), added, changed, removed, bytesToLoad, estimatedMillis, fullImport);
         }
-        return resources;
     }
 
-    public static boolean isAnIgnitionResource(String resource) {
-        return !resource.startsWith(".git")
-                && !resource.startsWith("tags")
-                && !resource.startsWith("images")
-                && !resource.startsWith("themes")
-                && !resource.equals("project.json");
+    private static void recordImportDuration(int resourceCount, long millis) {
+        // Small imports are dominated by fixed costs and would skew the average
+        if (resourceCount >= 10) {
+            millisPerResource = 0.8 * millisPerResource + 0.2 * ((double) millis / resourceCount);
+        }
     }
 
-    public static Set<ProjectResource> importFromFolder(Path projectPath, String projectName) throws ProjectInvalidException, IOException {
-        Set<ProjectResource> resources = new HashSet<>();
-        Set<StringPath> createdFolders = new HashSet<>();
+    /**
+     * Capture the HEAD commit and the uncommitted paths of a project before an operation that
+     * rewrites its working tree (pull, checkout, revert), to be given to {@link #importChanges}.
+     *
+     * @return the captured state, or null if it cannot be read, in which case a full import is done
+     */
+    public static WorkingTreeState captureState(String projectName) {
+        try {
+            return new WorkingTreeState(GitManager.getHead(getProjectFolderPath(projectName)), getDirtyPaths(projectName));
+        } catch (Exception e) {
+            logger.debug("Unable to capture the working tree state of '" + projectName + "' project.", e);
+            return null;
+        }
+    }
 
-        Set<Map.Entry<String, byte[]>> files = listFiles(projectPath);
-        files.stream().collect(Collectors.groupingBy(e -> StringUtils.substringBeforeLast(e.getKey(), "/")))
-                .forEach((resourcePath, listOfFileNodes) -> {
-                    StringPath stringPath = StringPath.parse(resourcePath);
-                    resources.addAll(createParentFolderResources(projectName, stringPath, createdFolders));
-                    String manifestPath = String.format("%s/%s", resourcePath, "resource.json");
+    /**
+     * Import the resources touched since {@code before} was captured: the files that differ between
+     * the previous and the current HEAD, plus the files that were or are now uncommitted (stashed,
+     * restored or left aside by the operation).
+     */
+    public static void importChanges(String projectName, WorkingTreeState before) {
+        Set<String> changedPaths = null;
+        if (before != null) {
+            try {
+                changedPaths = GitManager.getChangedPaths(getProjectFolderPath(projectName), before.head);
+                if (changedPaths != null) {
+                    changedPaths.addAll(before.dirtyPaths);
+                    GitStatusManager.markAllDirty(projectName);
+                    changedPaths.addAll(getDirtyPaths(projectName));
+                }
+            } catch (Exception e) {
+                logger.warn("Unable to list the files changed in '" + projectName + "' project.", e);
+                changedPaths = null;
+            }
+        }
+        importPaths(projectName, changedPaths);
+    }
 
-                    ProjectResourceManifest resourceManifest = removeResourceManifest(manifestPath, listOfFileNodes);
+    /**
+     * Create, update or delete the resources containing {@code paths} so that the project matches its
+     * folder again. Falls back to {@link #importProject(String)} when the paths are unknown, when
+     * {@code project.json} changed, when too many resources changed or when the changes are rejected.
+     *
+     * @param paths repository-relative files or resource folders, null if unknown
+     */
+    public static void importPaths(String projectName, Collection<String> paths) {
+        if (paths != null) {
+            try {
+                if (importIncrementally(projectName, paths)) {
+                    return;
+                }
+            } catch (CancellationException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.warn("Incremental import of '" + projectName + "' project failed, importing the whole project.", e);
+            }
+        }
+        importProject(projectName);
+    }
 
-                    if (resourceManifest != null) {
+    private static boolean importIncrementally(String projectName, Collection<String> paths) throws Exception {
+        long startedAt = System.currentTimeMillis();
+        ProjectManager projectManager = context.getProjectManager();
+        RuntimeProject project = projectManager.getProject(projectName).orElse(null);
+        if (project == null) {
+            return false;
+        }
+        Path projectDir = getProjectFolderPath(projectName);
 
-                        Map<String, byte[]> dataMap = createDataMap(resourceManifest, listOfFileNodes);
+        Set<String> folders = new TreeSet<>();
+        for (String path : paths) {
+            if (path.equals("project.json")) {
+                return false;
+            }
+            if (!isAnIgnitionResource(path)) {
+                continue;
+            }
+            String folder = toResourceFolder(project, projectName, projectDir, path);
+            if (folder != null) {
+                folders.add(folder);
+            }
+        }
+        if (folders.size() > MAX_INCREMENTAL_RESOURCES) {
+            logger.debugf("%d resources changed in '%s' project, importing the whole project", folders.size(), projectName);
+            return false;
+        }
 
-                        resources.add(createResourceBuilder(projectName, stringPath, resourceManifest, dataMap).build());
-                    } else if (!createdFolders.contains(stringPath)) {
-                        resources.add(createResourceBuilder(projectName, stringPath, ProjectResourceManifest.newBuilder().build(), new HashMap<>()).setFolder(true).build());
-                        createdFolders.add(stringPath);
+        // Sorted folders put parents before their children: creations follow that order, deletions the reverse one
+        List<ChangeOperation> upserts = new ArrayList<>();
+        TreeMap<String, ChangeOperation> deletions = new TreeMap<>();
+        Set<String> created = new HashSet<>();
+        long bytesRead = 0;
+        for (String folder : folders) {
+            StringPath stringPath = StringPath.parse(folder);
+            Path folderPath = projectDir.resolve(folder);
+            ProjectResource existing = getOwnResource(project, projectName, folder);
+
+            if (Files.isDirectory(folderPath)) {
+                ProjectResource resource = readResource(projectName, stringPath, folderPath);
+                if (resource == null) {
+                    if (existing != null && !existing.isFolder()) {
+                        return false;
+                    }
+                    if (existing != null || stringPath.getPathLength() <= 2) {
+                        continue;
                     }
-                });
-
-        return resources;
-    }
-
-    private static ProjectResourceManifest removeResourceManifest(String manifestPath, List<Map.Entry<String, byte[]>> listOfFileNodes) {
-        return listOfFileNodes.stream()
-                .filter(e -> manifestPath.equals(e.getKey()))
-                .findFirst()
-                .map(entry -> {
-                    listOfFileNodes.remove(entry);
-                    try {
-                        return ProjectResourceManifest.fromJson(new String(entry.getValue(), StandardCharsets.UTF_8));
-                    } catch (JsonSyntaxException e) {
-                        logger.infof("Malformed resource.json at %s, unable to remove", entry.getKey(), e);
-                        return null;
+                    resource = newFolderResource(projectName, stringPath);
+                }
+                bytesRead += dataSize(resource);
+                addUpsert(project, projectName, folder, resource, created, upserts);
+            } else {
+                // Remove the resource and the parent folders whose directory disappeared with it
+                StringPath current = stringPath;
+                while (current != null && current.getPathLength() > 1
+                        && !Files.isDirectory(projectDir.resolve(current.toString()))) {
+                    String currentFolder = current.toString();
+                    ProjectResource resource = getOwnResource(project, projectName, currentFolder);
+                    if (resource != null && !deletions.containsKey(currentFolder)) {
+                        deletions.put(currentFolder, ChangeOperation.newDeleteOp(resource.getResourceId(), resource.getResourceSignature()));
                     }
-                }).orElse(null);
+                    current = current.getParentPath();
+                }
+            }
+        }
+
+        List<ChangeOperation> changes = new ArrayList<>(upserts);
+        changes.addAll(deletions.descendingMap().values());
+        GitJobManager.GitJob job = GitJobManager.current();
+        if (job != null) {
+            job.checkCancelled();
+            job.addProgress(folders.size(), bytesRead);
+        }
+        if (!changes.isEmpty()) {
+            projectManager.pushChanges(projectName, changes);
+        }
+        recordImportDuration(folders.size(), System.currentTimeMillis() - startedAt);
+        logger.debugf("Imported %d changed resources of '%s' project (%d deleted)", changes.size(), projectName, deletions.size());
+        return true;
+    }
+
+    /**
+     * Add the operation creating or updating {@code resource}, preceded by the creation of its parent
+     * folders missing from the project. Folders that already exist are left as they are.
+     *
+     * @param created folders created by {@code changes} so far, updated by this call
+     */
+    private static void addUpsert(RuntimeProject project, String projectName, String folder, ProjectResource resource,
+                                  Set<String> created, List<ChangeOperation> changes) {
+        Deque<StringPath> missingParents = new ArrayDeque<>();
+        for (StringPath parent = StringPath.parse(folder).getParentPath();
+             parent != null && parent.getPathLength() > 2;
+             parent = parent.getParentPath()) {
+            String parentFolder = parent.toString();
+            if (getOwnResource(project, projectName, parentFolder) == null && created.add(parentFolder)) {
+                missingParents.addFirst(parent);
+            }
+        }
+        for (StringPath parent : missingParents) {
+            changes.add(ChangeOperation.newCreateOp(newFolderResource(projectName, parent)));
+        }
+
+        ProjectResource existing = getOwnResource(project, projectName, folder);
+        if (existing == null) {
+            if (created.add(folder)) {
+                changes.add(ChangeOperation.newCreateOp(resource));
+            }
+        } else if ((!existing.isFolder() || !resource.isFolder()) && !isSameResource(existing, resource)) {
+            changes.add(ChangeOperation.newModifyOp(resource, existing.getResourceSignature()));
+        }
+    }
+
+    /** Whether saving {@code resource} over {@code current} would change neither its manifest nor its data. */
+    private static boolean isSameResource(ProjectResource current, ProjectResource resource) {
+        if (current.isFolder() != resource.isFolder()
+                || current.isRestricted() != resource.isRestricted()
+                || current.isOverridable() != resource.isOverridable()
+                || current.getApplicationScope() != resource.getApplicationScope()
+                || current.getVersion() != resource.getVersion()
+                || !Objects.equals(current.getDocumentation(), resource.getDocumentation())
+                || !Objects.equals(current.getAttributes(), resource.getAttributes())
+                || !current.getDataKeys().equals(resource.getDataKeys())) {
+            return false;
+        }
+        for (String key : resource.getDataKeys()) {
+            if (!Arrays.equals(current.getData(key), resource.getData(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resource folder containing {@code path}: the path itself for a folder, the parent for a file.
+     * A path that no longer exists is taken as a folder if the project has a resource there.
+     */
+    private static String toResourceFolder(RuntimeProject project, String projectName, Path projectDir, String path) {
+        Path filePath = projectDir.resolve(path);
+        String folder = path;
+        if (!Files.isDirectory(filePath)
+                && (Files.exists(filePath) || getOwnResource(project, projectName, path) == null)) {
+            int slash = path.lastIndexOf('/');
+            folder = slash > 0 ? path.substring(0, slash) : null;
+        }
+        // Module folders (e.g. "ignition") are not resources
+        return folder != null && folder.indexOf('/') > 0 ? folder : null;
+    }
+
+    /** Resource defined by the project itself at {@code folder}, ignoring inherited ones. */
+    private static ProjectResource getOwnResource(RuntimeProject project, String projectName, String folder) {
+        return project.getResource(GitManager.getResourcePath(folder))
+                .filter(resource -> projectName.equals(resource.getProjectName()))
+                .orElse(null);
     }
 
+    /**
+     * Read the resource stored in a folder: its resource.json and the data files it lists. The
+     * resource built by a previous import is reused if none of these files changed.
+     *
+     * @return the resource, or null if the folder has no resource.json
+     * @throws IOException if the resource.json is malformed or a file it lists is missing or cannot be read
+     */
+    private static ProjectResource readResource(String projectName, StringPath resourcePath, Path folderPath) throws IOException {
+        String folder = resourcePath.toString();
+        ProjectResource cached = GitResourceCache.get(projectName, folder, folderPath);
+        if (cached != null) {
+            return cached;
+        }
 
-    private static List<ProjectResource> createParentFolderResources(String projectName, StringPath resourcePath, Set<StringPath> ignoreList) {
-        List<ProjectResource> folders = new ArrayList<>();
-        StringPath currentPath = resourcePath.getParentPath();
-        while (currentPath != null && currentPath.getPathLength() > 0 &&
-                !ignoreList.contains(currentPath)) {
-            folders.add(createResourceBuilder(projectName, currentPath,
-                    ProjectResourceManifest.newBuilder().build(), new HashMap<>())
-                    .setFolder(true)
-                    .build());
-            ignoreList.add(currentPath);
-            currentPath = currentPath.getParentPath();
+        GitResourceCache.Fingerprint fingerprint = new GitResourceCache.Fingerprint();
+        Path manifestPath = folderPath.resolve("resource.json");
+        if (!fingerprint.add(manifestPath)) {
+            return null;
         }
+        ProjectResourceManifest manifest = parseManifest(Files.readAllBytes(manifestPath), folder);
 
-        return folders;
+        Map<String, byte[]> dataMap = new HashMap<>();
+        for (String fileName : manifest.getFiles()) {
+            if (!isDataFileName(fileName)) {
+                continue;
+            }
+            Path filePath = folderPath.resolve(fileName);
+            if (!fingerprint.add(filePath)) {
+                throw missingDataFile(fileName, folder);
+            }
+            dataMap.put(fileName, Files.readAllBytes(filePath));
+        }
+        ProjectResource resource = createResourceBuilder(projectName, resourcePath, manifest, dataMap).build();
+        GitResourceCache.put(projectName, folder, fingerprint, resource);
+        return resource;
     }
 
-    private static Map<String, byte[]> createDataMap(ProjectResourceManifest resourceManifest, List<Map.Entry<String, byte[]>> listOfFileNodes) {
-        List<String> allowedFiles = resourceManifest.getFiles();
-        HashMap<String, byte[]> dataMap = new HashMap<>();
-        listOfFileNodes.forEach(e -> {
-            String filename = StringUtils.substringAfterLast(e.getKey(), "/");
-            if (allowedFiles.contains(filename))
-                dataMap.put(filename, e.getValue());
+    /**
+     * Same as {@link #readResource(String, StringPath, Path)} for a directory of a Git tree.
+     *
+     * @param files blob ids of the files of the directory, by file name
+     */
+    private static ProjectResource readResource(ObjectReader reader, String projectName, StringPath resourcePath,
+                                                Map<String, ObjectId> files) throws IOException {
+        ObjectId manifestId = files.get("resource.json");
+        if (manifestId == null) {
+            return null;
+        }
+        ProjectResourceManifest manifest = parseManifest(readBlob(reader, manifestId), resourcePath.toString());
+
+        Map<String, byte[]> dataMap = new HashMap<>();
+        for (String fileName : manifest.getFiles()) {
+            if (!isDataFileName(fileName)) {
+                continue;
+            }
+            ObjectId blobId = files.get(fileName);
+            if (blobId == null) {
+                throw missingDataFile(fileName, resourcePath.toString());
+            }
+            dataMap.put(fileName, readBlob(reader, blobId));
+        }
+        return createResourceBuilder(projectName, resourcePath, manifest, dataMap).build();
+    }
+
+    /** Data files always sit directly in the resource folder, other names listed by a manifest are ignored. */
+    private static boolean isDataFileName(String fileName) {
+        return !fileName.contains("/") && !fileName.contains("\\") && !fileName.equals("..");
+    }
+
+    private static IOException missingDataFile(String fileName, String folder) {
+        return new IOException("Missing or unreadable file '" + fileName + "' listed by resource.json in " + folder);
+    }
+
+    /**
+     * Check that every resource.json of a project folder can be parsed and that the data files it
+     * lists are readable, without building the resources. Folders are checked in parallel and the
+     * first error stops the check; resources still cached from a previous import are valid and not
+     * read again.
+     *
+     * @throws IOException describing the first invalid resource found
+     */
+    private static void validateProject(String projectName, Path projectDir) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        GitProjectLoader.load(projectDir, (resourcePath, folder, fileNames) -> {
+            if (fileNames.contains("resource.json") && !GitResourceCache.contains(projectName, resourcePath, folder)) {
+                ProjectResourceManifest manifest = parseManifest(Files.readAllBytes(folder.resolve("resource.json")), resourcePath);
+                for (String fileName : manifest.getFiles()) {
+                    Path filePath = folder.resolve(fileName);
+                    if (isDataFileName(fileName) && (!Files.isRegularFile(filePath) || !Files.isReadable(filePath))) {
+                        throw missingDataFile(fileName, resourcePath);
+                    }
+                }
+            }
+            return null;
+        }, (resourcePath, resource) -> {
         });
-        return dataMap;
+        logger.debugf("Validated '%s' project folder in %d ms", projectName, System.currentTimeMillis() - startedAt);
+    }
+
+    private static ProjectResourceManifest parseManifest(byte[] json, String folder) throws IOException {
+        try {
+            ProjectResourceManifest manifest = ProjectResourceManifest.fromJson(new String(json, StandardCharsets.UTF_8));
+            if (manifest == null) {
+                throw new IOException("Empty resource.json in " + folder);
+            }
+            return manifest;
+        } catch (JsonSyntaxException e) {
+            throw new IOException("Malformed resource.json in " + folder, e);
+        }
+    }
+
+    private static byte[] readBlob(ObjectReader reader, ObjectId blobId) throws IOException {
+        ObjectLoader loader = reader.open(blobId, Constants.OBJ_BLOB);
+        if (!loader.isLarge()) {
+            return loader.getCachedBytes();
+        }
+        try (ObjectStream stream = loader.openStream()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static Set<String> getDirtyPaths(String projectName) throws Exception {
+        GitStatusManager.StatusSnapshot status = GitStatusManager.getStatus(projectName);
+        Set<String> paths = new HashSet<>(status.getUncommittedChanges());
+        paths.addAll(status.getUntracked());
+        paths.addAll(status.getMissing());
+        return paths;
+    }
+
+    public static boolean isAnIgnitionResource(String resource) {
+        return !resource.startsWith(".git")
+                && !resource.startsWith("tags")
+                && !resource.startsWith("images")
+                && !resource.startsWith("themes")
+                && !resource.equals("project.json");
+    }
+
+    /**
+     * Build the resource of a directory, or a folder resource if it has no resource.json.
+     * Only resource.json and the files it lists are read, other files of the directory are ignored.
+     */
+    private static ProjectResource readFolder(String projectName, String resourcePath, Path folder, List<String> fileNames) throws IOException {
+        StringPath stringPath = StringPath.parse(resourcePath);
+        if (fileNames.contains("resource.json")) {
+            ProjectResource resource = readResource(projectName, stringPath, folder);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return newFolderResource(projectName, stringPath);
+    }
+
+    private static ProjectResource newFolderResource(String projectName, StringPath resourcePath) {
+        return createResourceBuilder(projectName, resourcePath, ProjectResourceManifest.newBuilder().build(), new HashMap<>())
+                .setFolder(true)
+                .build();
     }
 
     private static ProjectResourceBuilder createResourceBuilder(String projectName, StringPath resourcePath, ProjectResourceManifest manifest, Map<String, byte[]> dataMap) {
         String moduleId = resourcePath.getPathComponent(0);
-        String resourceType = (resourcePath.getPathLength() > 1) ? resourcePath.getPathComponent(1) : null;
+        // Same type id as GitManager.getResourcePath, so that module folders are found in the project
+        String resourceType = (resourcePath.getPathLength() > 1) ? resourcePath.getPathComponent(1) : "";
         String subPath = (resourcePath.getPathLength() > 2) ? resourcePath.subPath().subPath().toString() : "";
         return ProjectResource.newBuilder()
                 .setProjectName(projectName)
@@ -168,4 +742,235 @@ public class GitProjectManager {
         return ProjectManifest.fromJson(json);
     }
 
+    public static ProjectManifest loadProjectManifest(ObjectReader reader, RevTree tree) throws IOException {
+        try (TreeWalk treeWalk = TreeWalk.forPath(reader, "project.json", tree)) {
+            if (treeWalk == null) {
+                throw new IOException("project.json not found in tree " + tree.name());
+            }
+            return ProjectManifest.fromJson(new String(readBlob(reader, treeWalk.getObjectId(0)), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long dataSize(ProjectResource resource) {
+        long size = 0;
+        for (String key : resource.getDataKeys()) {
+            byte[] data = resource.getData(key);
+            size += data != null ? data.length : 0;
+        }
+        return size;
+    }
+
+    /**
+     * Collects the resources read by a full import and applies them to the project.
+     * <p>
+     * A project that does not exist yet is created at once with {@code createOrReplaceProject}. For
+     * an existing project, only the resources that differ from the live ones are sent, as
+     * create/modify operations, so unchanged resources are not saved again by the gateway. When
+     * the resource data fits in {@link #IMPORT_HEAP_BUDGET}, these operations and the deletion of the
+     * resources not found on disk are sent in a single {@code pushChanges}. Otherwise the resources
+     * collected so far are pushed and released each time the budget is reached, and the deletions
+     * are sent at the end. Loader threads keep reading while a batch is pushed and only wait when the
+     * next batch is full too, so about two batches of data are held at once.
+     * <p>
+     * The budget covers the resources held by the import; the resources kept by
+     * {@link GitResourceCache} between imports are bounded separately and come on top of it.
+     * <p>
+     * A malformed resource.json or a missing data file stops the import before anything is applied
+     * to the project: the changes of an import that fits in one batch are only sent once every
+     * resource is read, and the whole project folder is validated with {@link #validateProject}
+     * before the first of several batches is pushed. Imports that fit in one batch pay nothing extra.
+     */
+    private static class ImportBatcher {
+        private final String projectName;
+        private final Path projectDir;
+        private final RuntimeProject project;
+        private List<Map.Entry<String, ProjectResource>> pending = new ArrayList<>();
+        private long pendingBytes;
+        /** Data of the pending resources and of the batch being pushed. */
+        private long heldBytes;
+        private long peakBytes;
+        private boolean pushing;
+        private boolean pushFailed;
+        private int resourceCount;
+        // Only used by the thread pushing a batch, one at a time, then by finish()
+        private int batches;
+        private int changeCount;
+        private final Set<String> created = new HashSet<>();
+        private final Set<ResourcePath> imported = new HashSet<>();
+        /** Job of the thread that started the import, resources are added from the loader threads. */
+        private final GitJobManager.GitJob job = GitJobManager.current();
+
+        ImportBatcher(String projectName, Path projectDir, RuntimeProject project) {
+            this.projectName = projectName;
+            this.projectDir = projectDir;
+            this.project = project;
+        }
+
+        void add(String folder, ProjectResource resource) {
+            long bytes = dataSize(resource);
+            if (job != null) {
+                job.addProgress(1, bytes);
+            }
+
+            List<Map.Entry<String, ProjectResource>> batch = null;
+            long batchBytes = 0;
+            synchronized (this) {
+                pending.add(new AbstractMap.SimpleEntry<>(folder, resource));
+                resourceCount++;
+                pendingBytes += bytes;
+                heldBytes += bytes;
+                peakBytes = Math.max(peakBytes, heldBytes);
+                peakImportBytes.accumulateAndGet(heldBytes, Math::max);
+                if (project == null) {
+                    return;
+                }
+                try {
+                    while (pushing && pendingBytes > IMPORT_HEAP_BUDGET) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                if (pushFailed) {
+                    throw new RuntimeException("A previous batch of '" + projectName + "' project failed");
+                }
+                if (pendingBytes > IMPORT_HEAP_BUDGET) {
+                    batch = pending;
+                    batchBytes = pendingBytes;
+                    pending = new ArrayList<>();
+                    pendingBytes = 0;
+                    pushing = true;
+                }
+            }
+            if (batch == null) {
+                return;
+            }
+
+            boolean pushed = false;
+            try {
+                pushBatch(batch);
+                pushed = true;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                synchronized (this) {
+                    pushing = false;
+                    pushFailed |= !pushed;
+                    heldBytes -= batchBytes;
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized void finish(ProjectManifest manifest) throws Exception {
+            checkCancelled();
+            ProjectManager projectManager = context.getProjectManager();
+            // Loader threads deliver resources in any order, sort them so that imports are reproducible
+            pending.sort(Map.Entry.comparingByKey());
+            if (project == null) {
+                List<ProjectResource> resources = new ArrayList<>(pending.size());
+                for (Map.Entry<String, ProjectResource> entry : pending) {
+                    resources.add(entry.getValue());
+                }
+                pending.clear();
+                projectManager.createOrReplaceProject(projectName, manifest, resources);
+                logger.debugf("Imported %d resources of '%s' project, %d bytes of data", resourceCount, projectName, peakBytes);
+                return;
+            }
+
+            List<ChangeOperation> changes = toChanges(pending);
+            pending.clear();
+
+            // Deleting in reverse path order removes children before their parent folder
+            TreeMap<String, ChangeOperation> deletions = new TreeMap<>();
+            for (ProjectResource resource : project.getResources()) {
+                if (projectName.equals(resource.getProjectName()) && !imported.contains(resource.getResourcePath())) {
+                    deletions.put(resource.getResourcePath().toString(),
+                            ChangeOperation.newDeleteOp(resource.getResourceId(), resource.getResourceSignature()));
+                }
+            }
+            changes.addAll(deletions.descendingMap().values());
+            if (!changes.isEmpty()) {
+                projectManager.pushChanges(projectName, changes);
+            }
+
+            if (!isSameManifest(project.getManifest(), manifest)) {
+                // Replacing the manifest keeps the resources the project now holds
+                RuntimeProject updated = projectManager.getProject(projectName).orElse(project);
+                List<ProjectResource> ownResources = new ArrayList<>();
+                for (ProjectResource resource : updated.getResources()) {
+                    if (projectName.equals(resource.getProjectName())) {
+                        ownResources.add(resource);
+                    }
+                }
+                projectManager.createOrReplaceProject(projectName, manifest, ownResources);
+            }
+
+            logger.infof("Imported %d resources of '%s' project in %d batches: %d created or modified, %d deleted, at most %d bytes of data held",
+                    resourceCount, projectName, batches + 1, changeCount, deletions.size(), peakBytes);
+        }
+
+        /** Cancellation is honored between batches, never while a batch is being pushed. */
+        private void checkCancelled() {
+            if (job != null) {
+                job.checkCancelled();
+            }
+        }
+
+        /** Called without holding the batcher lock: loader threads keep reading meanwhile. */
+        private void pushBatch(List<Map.Entry<String, ProjectResource>> batch) throws Exception {
+            checkCancelled();
+            if (batches == 0) {
+                validateProject(projectName, projectDir);
+            }
+            batch.sort(Map.Entry.comparingByKey());
+            List<ChangeOperation> changes = toChanges(batch);
+            if (!changes.isEmpty()) {
+                context.getProjectManager().pushChanges(projectName, changes);
+            }
+            batches++;
+        }
+
+        /** Operations creating or modifying the resources of {@code batch} that differ from the project. */
+        private List<ChangeOperation> toChanges(List<Map.Entry<String, ProjectResource>> batch) {
+            // Sorted paths put parent folders before their children
+            List<ChangeOperation> changes = new ArrayList<>();
+            for (Map.Entry<String, ProjectResource> entry : batch) {
+                ProjectResource resource = entry.getValue();
+                // Module and type directories are not project resources, as in importIncrementally
+                if (resource.isFolder() && StringPath.parse(entry.getKey()).getPathLength() <= 2) {
+                    continue;
+                }
+                imported.add(resource.getResourcePath());
+                addUpsert(project, projectName, entry.getKey(), entry.getValue(), created, changes);
+            }
+            changeCount += changes.size();
+            return changes;
+        }
+
+        private static boolean isSameManifest(ProjectManifest current, ProjectManifest manifest) {
+            return Objects.equals(current.getTitle(), manifest.getTitle())
+                    && Objects.equals(current.getDescription(), manifest.getDescription())
+                    && Objects.equals(current.getParent(), manifest.getParent())
+                    && current.isEnabled() == manifest.isEnabled()
+                    && current.isInheritable() == manifest.isInheritable();
+        }
+    }
+
+    /**
+     * HEAD commit and uncommitted paths of a working tree, see {@link #captureState(String)}.
+     */
+    public static class WorkingTreeState {
+        private final ObjectId head;
+        private final Set<String> dirtyPaths;
+
+        WorkingTreeState(ObjectId head, Set<String> dirtyPaths) {
+            this.head = head;
+            this.dirtyPaths = dirtyPaths;
+        }
+    }
+
 }
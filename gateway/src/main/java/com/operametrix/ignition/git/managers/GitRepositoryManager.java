@@ -0,0 +1,173 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gateway-wide registry of open {@link Repository} handles, one per project folder.
+ * <p>
+ * Opening a repository re-reads its config, refs and pack indexes, which is too costly to
+ * repeat on every RPC call. Handles are reference counted: {@link #acquire(Path)} returns a
+ * {@link Git} whose {@code close()} releases the handle instead of closing the repository.
+ * Handles that stay unused for {@link #IDLE_TIMEOUT_MS} are closed by {@link #evictIdle()},
+ * and {@link #invalidate(Path)} drops a handle after the repository was re-initialized or cloned.
+ */
+public class GitRepositoryManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitRepositoryManager.class);
+
+    public static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+    public static final int EVICTION_RATE_MS = (int) TimeUnit.MINUTES.toMillis(1);
+
+    private static final Map<Path, RepositoryEntry> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * Borrow the shared repository of a project folder. The returned {@link Git} must be closed
+     * (typically with try-with-resources); closing it releases the borrowed handle. Callers must
+     * not close the underlying {@link Repository} themselves.
+     */
+    public static Git acquire(Path projectFolderPath) throws IOException {
+        Path key = projectFolderPath.toAbsolutePath().normalize();
+        while (true) {
+            RepositoryEntry entry = repositories.computeIfAbsent(key, RepositoryEntry::new);
+            Repository repository;
+            try {
+                repository = entry.retain();
+            } catch (IOException e) {
+                repositories.remove(key, entry);
+                throw e;
+            }
+
+            if (repository != null) {
+                return new PooledGit(entry, repository);
+            }
+
+            // The entry was evicted or invalidated concurrently, retry with a fresh one
+            repositories.remove(key, entry);
+        }
+    }
+
+    /**
+     * Drop the cached handle of a project folder, e.g. after {@code git init} or a clone replaced
+     * the repository on disk. The repository is closed as soon as its last borrower releases it.
+     */
+    public static void invalidate(Path projectFolderPath) {
+        Path key = projectFolderPath.toAbsolutePath().normalize();
+        RepositoryEntry entry = repositories.remove(key);
+        if (entry != null) {
+            entry.invalidate();
+            logger.debugf("Invalidated repository handle for '%s'", key);
+        }
+    }
+
+    /** Close every handle that has not been borrowed for {@link #IDLE_TIMEOUT_MS}. */
+    public static void evictIdle() {
+        long now = System.currentTimeMillis();
+        repositories.forEach((key, entry) -> {
+            if (entry.evictIfIdle(now, IDLE_TIMEOUT_MS)) {
+                repositories.remove(key, entry);
+                logger.debugf("Evicted idle repository handle for '%s'", key);
+            }
+        });
+    }
+
+    /** Close all handles, used on module shutdown. */
+    public static void closeAll() {
+        repositories.forEach((key, entry) -> {
+            repositories.remove(key, entry);
+            entry.invalidate();
+        });
+    }
+
+    public static int getOpenRepositoryCount() {
+        return repositories.size();
+    }
+
+    private static class RepositoryEntry {
+        private final Path gitDir;
+        private Repository repository;
+        private int refCount;
+        private long lastReleased;
+        private boolean invalidated;
+
+        RepositoryEntry(Path projectFolderPath) {
+            this.gitDir = projectFolderPath.resolve(".git");
+            this.lastReleased = System.currentTimeMillis();
+        }
+
+        /** @return the open repository, or null if this entry can no longer be used */
+        synchronized Repository retain() throws IOException {
+            if (invalidated) {
+                return null;
+            }
+            if (repository == null) {
+                repository = new FileRepositoryBuilder()
+                        .setGitDir(gitDir.toFile())
+                        .setMustExist(true)
+                        .build();
+            }
+            refCount++;
+            return repository;
+        }
+
+        synchronized void release() {
+            refCount--;
+            lastReleased = System.currentTimeMillis();
+            if (refCount == 0 && invalidated) {
+                closeRepository();
+            }
+        }
+
+        synchronized boolean evictIfIdle(long now, long idleTimeout) {
+            if (!invalidated && refCount == 0 && now - lastReleased >= idleTimeout) {
+                invalidated = true;
+                closeRepository();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void invalidate() {
+            invalidated = true;
+            if (refCount == 0) {
+                closeRepository();
+            }
+        }
+
+        private void closeRepository() {
+            if (repository != null) {
+                repository.close();
+                repository = null;
+            }
+        }
+    }
+
+    /**
+     * A {@link Git} bound to a shared repository. {@link Git#Git(Repository)} never closes the
+     * repository, so {@code close()} only hands the borrowed handle back to the registry.
+     */
+    private static class PooledGit extends Git {
+        private final RepositoryEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        PooledGit(RepositoryEntry entry, Repository repository) {
+            super(repository);
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                entry.release();
+            }
+        }
+    }
+}
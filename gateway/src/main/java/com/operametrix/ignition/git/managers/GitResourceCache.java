@@ -0,0 +1,197 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.project.resource.ProjectResource;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resources built by previous imports, reused while the files they were read from are unchanged.
+ * <p>
+ * An entry remembers the size and modification time of the resource.json and data files it was
+ * built from; it is only returned when every one of them still matches, so a re-import after a
+ * pull or a checkout only reads and parses the resources whose files were rewritten. Files modified
+ * less than {@link #RACY_WINDOW_MS} before being read are not cached, since a later write within
+ * the same timestamp could not be detected. Entries are evicted in least recently used order once
+ * the data they hold exceeds {@link #MAX_BYTES}.
+ */
+public class GitResourceCache {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitResourceCache.class);
+
+    public static final long MAX_BYTES = Long.getLong("ignition.git.resourceCacheBytes", 64L * 1024 * 1024);
+    private static final long RACY_WINDOW_MS = 2000;
+    /** Approximate size of an entry without its data, counted against {@link #MAX_BYTES}. */
+    private static final long ENTRY_OVERHEAD = 512;
+
+    private static final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalBytes;
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Get the resource previously built from {@code folder}, if none of its files changed since.
+     *
+     * @return the cached resource, or null if it must be read again
+     */
+    public static ProjectResource get(String projectName, String resourcePath, Path folder) {
+        String key = key(projectName, resourcePath);
+        Entry entry;
+        synchronized (GitResourceCache.class) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.fingerprint.matches(folder)) {
+            hitCount.incrementAndGet();
+            return entry.resource;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Whether {@link #get} would return the resource of {@code folder}, without counting a hit or a
+     * miss. A cached resource was built from a valid resource.json.
+     */
+    public static boolean contains(String projectName, String resourcePath, Path folder) {
+        Entry entry;
+        synchronized (GitResourceCache.class) {
+            entry = entries.get(key(projectName, resourcePath));
+        }
+        return entry != null && entry.fingerprint.matches(folder);
+    }
+
+    /**
+     * Remember a resource together with the stamps of the files it was built from, taken before
+     * they were read.
+     */
+    public static void put(String projectName, String resourcePath, Fingerprint fingerprint, ProjectResource resource) {
+        String key = key(projectName, resourcePath);
+        if (fingerprint.isRacy() || fingerprint.bytes + ENTRY_OVERHEAD > MAX_BYTES) {
+            synchronized (GitResourceCache.class) {
+                remove(key);
+            }
+            return;
+        }
+
+        synchronized (GitResourceCache.class) {
+            remove(key);
+            Entry entry = new Entry(fingerprint, resource);
+            entries.put(key, entry);
+            totalBytes += entry.weight();
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > MAX_BYTES && eldest.hasNext()) {
+                totalBytes -= eldest.next().weight();
+                eldest.remove();
+            }
+        }
+    }
+
+    public static synchronized void clear() {
+        if (!entries.isEmpty()) {
+            logger.debugf("Resource cache: %d hits, %d misses, %d entries, %d bytes",
+                    hitCount.get(), missCount.get(), entries.size(), totalBytes);
+        }
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private static void remove(String key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.weight();
+        }
+    }
+
+    private static String key(String projectName, String resourcePath) {
+        return projectName + "/" + resourcePath;
+    }
+
+    /**
+     * Size and modification time of the files a resource is built from, relative to its folder.
+     */
+    public static class Fingerprint {
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> stamps = new ArrayList<>();
+        private final long takenAt = System.currentTimeMillis();
+        private long bytes;
+
+        /**
+         * Record the current stamp of {@code file}, a direct child of the resource folder.
+         *
+         * @return true if the file exists and is a regular file
+         */
+        public boolean add(Path file) throws IOException {
+            long[] stamp = stamp(file);
+            names.add(file.getFileName().toString());
+            stamps.add(stamp);
+            if (stamp == null) {
+                return false;
+            }
+            bytes += stamp[0];
+            return true;
+        }
+
+        boolean matches(Path folder) {
+            try {
+                for (int i = 0; i < names.size(); i++) {
+                    long[] expected = stamps.get(i);
+                    long[] current = stamp(folder.resolve(names.get(i)));
+                    if (!Arrays.equals(expected, current)) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        boolean isRacy() {
+            for (long[] stamp : stamps) {
+                if (stamp != null && stamp[1] >= takenAt - RACY_WINDOW_MS) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** {size, lastModifiedMillis}, or null if the file does not exist or is not a regular file. */
+        private static long[] stamp(Path file) throws IOException {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new long[]{attributes.size(), attributes.lastModifiedTime().toMillis()};
+        }
+    }
+
+    private static class Entry {
+        private final Fingerprint fingerprint;
+        private final ProjectResource resource;
+
+        Entry(Fingerprint fingerprint, ProjectResource resource) {
+            this.fingerprint = fingerprint;
+            this.resource = resource;
+        }
+
+        long weight() {
+            return fingerprint.bytes + ENTRY_OVERHEAD;
+        }
+    }
+}
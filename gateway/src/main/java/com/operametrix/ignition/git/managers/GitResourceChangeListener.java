@@ -0,0 +1,65 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.project.resource.ProjectResource;
+import com.inductiveautomation.ignition.common.project.resource.ProjectResourceId;
+import com.inductiveautomation.ignition.common.project.resource.ProjectResourceListener;
+import com.inductiveautomation.ignition.common.project.resource.ResourcePath;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Journals project resource changes reported by the gateway's {@code ProjectManager}
+ * (Designer saves, gateway file scans, imports) as dirty resource folders of
+ * {@link GitStatusManager}, so status only re-examines the folders that were actually saved.
+ * Projects without a Git configuration are ignored. The journal only complements the folder
+ * watcher: it reports saves before the file events arrive, but never makes the status incremental
+ * by itself.
+ */
+public class GitResourceChangeListener implements ProjectResourceListener {
+
+    @Override
+    public void resourcesCreated(String projectName, List<ProjectResource> resources) {
+        journal(projectName, resources.stream().map(ProjectResource::getResourcePath));
+    }
+
+    @Override
+    public void resourcesModified(String projectName, List<ProjectResource> resources) {
+        journal(projectName, resources.stream().map(ProjectResource::getResourcePath));
+    }
+
+    @Override
+    public void resourcesDeleted(String projectName, List<ProjectResourceId> resourceIds) {
+        journal(projectName, resourceIds.stream().map(ProjectResourceId::getResourcePath));
+    }
+
+    private static void journal(String projectName, Stream<ResourcePath> resourcePaths) {
+        if (!isGitProject(projectName)) {
+            return;
+        }
+        Set<String> folders = resourcePaths
+                .map(GitResourceChangeListener::toFolderPath)
+                .collect(Collectors.toSet());
+        if (!folders.isEmpty()) {
+            GitStatusManager.markDirty(projectName, folders);
+        }
+    }
+
+    private static boolean isGitProject(String projectName) {
+        try {
+            GitManager.getGitProjectConfigRecord(projectName);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Repository-relative folder of a resource: {@code moduleId/typeId/path}. */
+    public static String toFolderPath(ResourcePath resourcePath) {
+        String folder = resourcePath.getResourceType().getModuleId() + "/" + resourcePath.getResourceType().getTypeId();
+        String path = resourcePath.getPath().toString();
+        return path.isEmpty() ? folder : folder + "/" + path;
+    }
+}
@@ -0,0 +1,283 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.operametrix.ignition.git.managers.GitManager.getGit;
+import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderPath;
+
+/**
+ * Incremental working-tree status per project.
+ * <p>
+ * The last computed status is kept in memory together with the HEAD commit and the index file
+ * stamp it was computed against. While the folder watcher tracks a project, see
+ * {@link #setChangeTracking(String, boolean)}, later calls only re-run {@code git status} on the
+ * paths reported through {@link #markDirty(String, Collection)} and merge the result into the
+ * cached snapshot. The gateway's resource change journal reports paths too, but only the watcher
+ * sees every change made on disk, so the journal alone never allows an incremental computation.
+ * Any HEAD or index change (commit, checkout, pull, stash...) forces a full scan. Without a
+ * registered watcher every call performs a full scan, so results are never stale.
+ */
+public class GitStatusManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitStatusManager.class);
+
+    /** Above this many dirty paths a full scan is cheaper than a filtered one. */
+    private static final int MAX_INCREMENTAL_PATHS = 500;
+
+    private static final Map<String, ProjectStatus> statuses = new ConcurrentHashMap<>();
+
+    /**
+     * Get the uncommitted status of a project, re-examining only dirty paths when possible.
+     */
+    public static StatusSnapshot getStatus(String projectName) throws Exception {
+        return statuses.computeIfAbsent(projectName, ProjectStatus::new).compute();
+    }
+
+    /**
+     * Report repository-relative paths (files or folders, '/' separated) whose working-tree
+     * content may have changed since the last status computation.
+     */
+    public static void markDirty(String projectName, Collection<String> paths) {
+        statuses.computeIfAbsent(projectName, ProjectStatus::new).markDirty(paths);
+        GitChangesManager.invalidate(projectName);
+        GitEventManager.statusChanged(projectName);
+    }
+
+    /** Force the next status computation of a project to scan the whole working tree. */
+    public static void markAllDirty(String projectName) {
+        statuses.computeIfAbsent(projectName, ProjectStatus::new).markAllDirty();
+        GitChangesManager.invalidate(projectName);
+        GitEventManager.statusChanged(projectName);
+    }
+
+    /**
+     * Declare whether a change feed reports every working-tree modification of the project.
+     * Incremental computation is only used while tracking is enabled.
+     */
+    public static void setChangeTracking(String projectName, boolean tracked) {
+        statuses.computeIfAbsent(projectName, ProjectStatus::new).setTracked(tracked);
+    }
+
+    /** Forget everything known about a project, e.g. when it is deleted or re-initialized. */
+    public static void invalidate(String projectName) {
+        statuses.remove(projectName);
+        GitChangesManager.invalidate(projectName);
+    }
+
+    /**
+     * Immutable view of the status categories used by the module.
+     */
+    public static class StatusSnapshot {
+        private final Set<String> missing;
+        private final Set<String> uncommitted;
+        private final Set<String> untracked;
+        private final Set<String> changed;
+
+        StatusSnapshot(Set<String> missing, Set<String> uncommitted, Set<String> untracked, Set<String> changed) {
+            this.missing = Collections.unmodifiableSet(missing);
+            this.uncommitted = Collections.unmodifiableSet(uncommitted);
+            this.untracked = Collections.unmodifiableSet(untracked);
+            this.changed = Collections.unmodifiableSet(changed);
+        }
+
+        static StatusSnapshot of(Status status) {
+            return new StatusSnapshot(
+                    new HashSet<>(status.getMissing()),
+                    new HashSet<>(status.getUncommittedChanges()),
+                    new HashSet<>(status.getUntracked()),
+                    new HashSet<>(status.getChanged()));
+        }
+
+        /** Replace every entry at or below one of {@code paths} with the entries of {@code partial}. */
+        StatusSnapshot merge(Set<String> paths, StatusSnapshot partial) {
+            return new StatusSnapshot(
+                    mergeSet(missing, paths, partial.missing),
+                    mergeSet(uncommitted, paths, partial.uncommitted),
+                    mergeSet(untracked, paths, partial.untracked),
+                    mergeSet(changed, paths, partial.changed));
+        }
+
+        private static Set<String> mergeSet(Set<String> current, Set<String> paths, Set<String> partial) {
+            Set<String> merged = new HashSet<>(current.size() + partial.size());
+            for (String entry : current) {
+                if (!isUnder(entry, paths)) {
+                    merged.add(entry);
+                }
+            }
+            merged.addAll(partial);
+            return merged;
+        }
+
+        /** Whether {@code entry} equals one of {@code paths} or lies inside one of them. */
+        static boolean isUnder(String entry, Set<String> paths) {
+            String current = entry;
+            while (true) {
+                if (paths.contains(current)) {
+                    return true;
+                }
+                int slash = current.lastIndexOf('/');
+                if (slash < 0) {
+                    return false;
+                }
+                current = current.substring(0, slash);
+            }
+        }
+
+        public Set<String> getMissing() {
+            return missing;
+        }
+
+        public Set<String> getUncommittedChanges() {
+            return uncommitted;
+        }
+
+        public Set<String> getUntracked() {
+            return untracked;
+        }
+
+        public Set<String> getChanged() {
+            return changed;
+        }
+
+        public boolean isClean() {
+            return missing.isEmpty() && uncommitted.isEmpty() && untracked.isEmpty() && changed.isEmpty();
+        }
+    }
+
+    private static class ProjectStatus {
+        private final String projectName;
+        private final Object dirtyLock = new Object();
+        private Set<String> dirtyPaths = new HashSet<>();
+        private boolean fullRescan = true;
+        private volatile boolean tracked;
+
+        private StatusSnapshot snapshot;
+        private ObjectId headId;
+        private IndexStamp indexStamp;
+
+        ProjectStatus(String projectName) {
+            this.projectName = projectName;
+        }
+
+        void markDirty(Collection<String> paths) {
+            synchronized (dirtyLock) {
+                if (fullRescan) {
+                    return;
+                }
+                dirtyPaths.addAll(paths);
+                if (dirtyPaths.size() > MAX_INCREMENTAL_PATHS) {
+                    fullRescan = true;
+                    dirtyPaths = new HashSet<>();
+                }
+            }
+        }
+
+        void markAllDirty() {
+            synchronized (dirtyLock) {
+                fullRescan = true;
+                dirtyPaths = new HashSet<>();
+            }
+        }
+
+        void setTracked(boolean tracked) {
+            if (this.tracked != tracked) {
+                this.tracked = tracked;
+                markAllDirty();
+            }
+        }
+
+        synchronized StatusSnapshot compute() throws Exception {
+            Path projectPath = getProjectFolderPath(projectName);
+            try (Git git = getGit(projectPath)) {
+                Repository repository = git.getRepository();
+                ObjectId currentHead = repository.resolve(Constants.HEAD);
+                IndexStamp currentStamp = IndexStamp.of(repository.getIndexFile().toPath());
+
+                // Take the pending dirty set; paths reported from now on belong to the next call
+                Set<String> paths;
+                boolean full;
+                synchronized (dirtyLock) {
+                    paths = dirtyPaths;
+                    full = fullRescan;
+                    dirtyPaths = new HashSet<>();
+                    fullRescan = false;
+                }
+
+                boolean reusable = tracked && !full && snapshot != null
+                        && Objects.equals(currentHead, headId)
+                        && Objects.equals(currentStamp, indexStamp);
+
+                if (reusable && paths.isEmpty()) {
+                    return snapshot;
+                }
+
+                try {
+                    if (reusable) {
+                        StatusCommand command = git.status();
+                        paths.forEach(command::addPath);
+                        snapshot = snapshot.merge(paths, StatusSnapshot.of(command.call()));
+                        logger.tracef("Incremental status of '%s' on %d path(s)", projectName, paths.size());
+                    } else {
+                        snapshot = StatusSnapshot.of(git.status().call());
+                        logger.tracef("Full status of '%s'", projectName);
+                    }
+                } catch (Exception e) {
+                    markAllDirty();
+                    throw e;
+                }
+                headId = currentHead;
+                indexStamp = currentStamp;
+                return snapshot;
+            }
+        }
+    }
+
+    /** Modification time and size of the index file, used to detect index rewrites. */
+    private static class IndexStamp {
+        private final FileTime lastModified;
+        private final long size;
+
+        private IndexStamp(FileTime lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        static IndexStamp of(Path indexFile) {
+            try {
+                return new IndexStamp(Files.getLastModifiedTime(indexFile), Files.size(indexFile));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof IndexStamp)) return false;
+            IndexStamp that = (IndexStamp) o;
+            return size == that.size && lastModified.equals(that.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(lastModified, size);
+        }
+    }
+}
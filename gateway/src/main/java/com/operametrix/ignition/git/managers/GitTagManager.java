@@ -1,6 +1,7 @@
 package com.operametrix.ignition.git.managers;
 
 import com.inductiveautomation.ignition.common.JsonUtilities;
+import com.inductiveautomation.ignition.common.gson.JsonArray;
 import com.inductiveautomation.ignition.common.gson.JsonElement;
 import com.inductiveautomation.ignition.common.gson.JsonObject;
 import com.inductiveautomation.ignition.common.tags.TagUtilities;
@@ -21,17 +22,39 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static com.operametrix.ignition.git.GatewayHook.context;
-import static com.operametrix.ignition.git.managers.GitManager.clearDirectory;
+import static com.operametrix.ignition.git.managers.GitManager.deleteOtherFiles;
 import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderPath;
+import static com.operametrix.ignition.git.managers.GitManager.hasSameContent;
 import static com.inductiveautomation.ignition.common.tags.TagUtilities.TAG_GSON;
 
+/**
+ * Exports the tag providers of the gateway to the {@code tags} folder and imports them back.
+ * <p>
+ * By default each provider is written to a single {@code <provider>.json} file. With
+ * {@link #SPLIT_EXPORT}, each provider is written to a {@code <provider>} folder instead: every tag
+ * folder becomes a directory holding a {@value #FOLDER_FILE} file with the folder properties and its
+ * tags, and every UDT definition gets its own {@code <name>}{@value #UDT_SUFFIX} file. Import reads
+ * both layouts.
+ */
 public class GitTagManager {
     private final static LoggerEx logger = LoggerEx.newBuilder().build(GitTagManager.class);
 
+    /** Whether tag providers are exported as one file per folder and UDT definition. */
+    public static final boolean SPLIT_EXPORT = Boolean.getBoolean("ignition.git.splitTagExport");
+
+    static final String FOLDER_FILE = "_folder.json";
+    static final String UDT_SUFFIX = ".udt.json";
+
     public static void importTagManager(String projectName) {
         Path projectDir = getProjectFolderPath(projectName);
         File tagsProjectDir = projectDir.resolve("tags").toFile();
@@ -42,10 +65,17 @@ public class GitTagManager {
             if (files != null) {
                 for (File file : files) {
                     String providerName = FilenameUtils.removeExtension(file.getName());
+                    if (file.isFile() && new File(tagsProjectDir, providerName).isDirectory()) {
+                        logger.warnf("Both '%s' and the '%s' folder exist, only the folder is imported", file.getName(), providerName);
+                        continue;
+                    }
                     TagProvider tagProvider = gatewayTagManager.getTagProvider(providerName);
                     if (tagProvider != null) {
                         try {
-                            tagProvider.importTagsAsync(new BasicTagPath(""), FileUtils.readFileToString(file, StandardCharsets.UTF_8.toString()), "JSON", CollisionPolicy.Overwrite, null);
+                            String json = file.isDirectory()
+                                    ? TAG_GSON.toJson(readTagFolder(file.toPath(), true))
+                                    : FileUtils.readFileToString(file, StandardCharsets.UTF_8.toString());
+                            tagProvider.importTagsAsync(new BasicTagPath(""), json, "JSON", CollisionPolicy.Overwrite, null);
                         } catch (IOException e) {
                             logger.warn("An error occurred while importing '" + providerName + "' tags.", e);
                         }
@@ -55,32 +85,163 @@ public class GitTagManager {
         }
     }
 
+    /**
+     * Write the tag providers to the {@code tags} folder. Providers are read and serialized in
+     * parallel, then only the files whose content changed are written and the files of removed
+     * providers, folders or UDT definitions are deleted.
+     */
     public static void exportTag(Path projectFolderPath) {
         Path tagFolderPath = projectFolderPath.resolve("tags");
-        clearDirectory(tagFolderPath);
 
         try {
             Files.createDirectories(tagFolderPath);
 
+            List<CompletableFuture<Map<Path, String>>> providerFiles = new ArrayList<>();
             for (TagProvider tagProvider : context.getTagManager().getTagProviders()) {
                 TagPath typesPath = TagPathParser.parse("");
                 List<TagPath> tagPaths = new ArrayList<>();
                 tagPaths.add(typesPath);
 
-                CompletableFuture<List<TagConfigurationModel>> cfTagModels =
-                        tagProvider.getTagConfigsAsync(tagPaths, true, true);
-                List<TagConfigurationModel> tModels = cfTagModels.get();
-
-                JsonObject json = TagUtilities.toJsonObject(tModels.get(0));
-                JsonElement sortedJson = JsonUtilities.createDeterministicCopy(json);
-
-                Path newFile = tagFolderPath.resolve(tagProvider.getName() + ".json");
+                providerFiles.add(tagProvider.getTagConfigsAsync(tagPaths, true, true)
+                        .thenApplyAsync(tModels -> toFiles(tagFolderPath, tagProvider.getName(), tModels.get(0))));
+            }
 
-                Files.writeString(newFile, TAG_GSON.toJson(sortedJson));
+            Set<Path> exported = new HashSet<>();
+            int fileCount = 0;
+            int written = 0;
+            for (CompletableFuture<Map<Path, String>> future : providerFiles) {
+                for (Map.Entry<Path, String> file : future.get().entrySet()) {
+                    fileCount++;
+                    for (Path path = file.getKey(); !path.equals(tagFolderPath); path = path.getParent()) {
+                        exported.add(path);
+                    }
+                    byte[] content = file.getValue().getBytes(StandardCharsets.UTF_8);
+                    if (!Files.isRegularFile(file.getKey()) || !hasSameContent(content, file.getKey())) {
+                        Files.createDirectories(file.getKey().getParent());
+                        Files.write(file.getKey(), content);
+                        written++;
+                    }
+                }
             }
+            int deleted = deleteOtherFiles(tagFolderPath, exported);
+            logger.debugf("Tags exported to %s: %d files written, %d unchanged, %d deleted",
+                    tagFolderPath, written, fileCount - written, deleted);
         } catch (Exception e) {
             logger.error(e.toString(), e);
             throw new RuntimeException(e);
         }
     }
+
+    /** Files of a tag provider, by path, in the layout selected by {@link #SPLIT_EXPORT}. */
+    private static Map<Path, String> toFiles(Path tagFolderPath, String providerName, TagConfigurationModel model) {
+        JsonObject json = TagUtilities.toJsonObject(model);
+        JsonObject sortedJson = JsonUtilities.createDeterministicCopy(json).getAsJsonObject();
+
+        Map<Path, String> files = new LinkedHashMap<>();
+        if (SPLIT_EXPORT) {
+            splitTagFolder(sortedJson, tagFolderPath.resolve(providerName), files);
+        } else {
+            files.put(tagFolderPath.resolve(providerName + ".json"), TAG_GSON.toJson(sortedJson));
+        }
+        return files;
+    }
+
+    /**
+     * Add the files of a tag folder: its {@value #FOLDER_FILE}, one file per UDT definition and a
+     * directory per sub-folder. A child whose file name differs only by case from a sibling's stays
+     * in {@value #FOLDER_FILE}, as case-insensitive file systems would merge them.
+     */
+    private static void splitTagFolder(JsonObject folder, Path directory, Map<Path, String> files) {
+        JsonObject properties = new JsonObject();
+        JsonArray tags = new JsonArray();
+        Set<String> fileNames = new HashSet<>();
+        for (Map.Entry<String, JsonElement> entry : folder.entrySet()) {
+            if (!entry.getKey().equals("tags")) {
+                properties.add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        JsonElement children = folder.get("tags");
+        if (children != null && children.isJsonArray()) {
+            for (JsonElement child : children.getAsJsonArray()) {
+                String tagType = getString(child, "tagType");
+                String name = getString(child, "name");
+                if (name == null || !isSafeFileName(name)) {
+                    tags.add(child);
+                } else if ("Folder".equals(tagType) && fileNames.add(name.toLowerCase(Locale.ROOT))) {
+                    splitTagFolder(child.getAsJsonObject(), directory.resolve(name), files);
+                } else if ("UdtType".equals(tagType) && fileNames.add((name + UDT_SUFFIX).toLowerCase(Locale.ROOT))) {
+                    files.put(directory.resolve(name + UDT_SUFFIX), TAG_GSON.toJson(child));
+                } else {
+                    tags.add(child);
+                }
+            }
+        }
+        if (tags.size() > 0) {
+            properties.add("tags", tags);
+        }
+        files.put(directory.resolve(FOLDER_FILE), TAG_GSON.toJson(properties));
+    }
+
+    /**
+     * Rebuild the JSON of a tag folder exported by {@link #splitTagFolder}. UDT definitions, and the
+     * {@code _types_} folder of the provider root, come first so that definitions precede the
+     * instances using them, then the tags of the folder, then the other sub-folders sorted by name.
+     *
+     * @param root whether {@code directory} is the folder of a tag provider
+     */
+    static JsonObject readTagFolder(Path directory, boolean root) throws IOException {
+        Path folderFile = directory.resolve(FOLDER_FILE);
+        JsonObject folder;
+        if (Files.isRegularFile(folderFile)) {
+            folder = TAG_GSON.fromJson(Files.readString(folderFile), JsonObject.class);
+        } else {
+            folder = new JsonObject();
+            folder.addProperty("name", directory.getFileName().toString());
+            folder.addProperty("tagType", "Folder");
+        }
+        JsonArray tags = new JsonArray();
+        List<Path> subFolders = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted()::iterator) {
+                if (Files.isDirectory(path)) {
+                    if (root && path.getFileName().toString().equals("_types_")) {
+                        tags.add(readTagFolder(path, false));
+                    } else {
+                        subFolders.add(path);
+                    }
+                } else if (path.getFileName().toString().endsWith(UDT_SUFFIX)) {
+                    tags.add(TAG_GSON.fromJson(Files.readString(path), JsonObject.class));
+                }
+            }
+        }
+        if (folder.has("tags")) {
+            tags.addAll(folder.getAsJsonArray("tags"));
+        }
+        for (Path subFolder : subFolders) {
+            tags.add(readTagFolder(subFolder, false));
+        }
+        if (tags.size() > 0) {
+            folder.add("tags", tags);
+        }
+        return folder;
+    }
+
+    private static String getString(JsonElement element, String member) {
+        if (!element.isJsonObject()) {
+            return null;
+        }
+        JsonElement value = element.getAsJsonObject().get(member);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    /** Tag names that cannot be used as a file name on every platform stay in their parent folder file. */
+    private static boolean isSafeFileName(String name) {
+        return !name.isEmpty()
+                && !name.startsWith(".")
+                && !name.endsWith(".")
+                && !name.endsWith(" ")
+                && !name.equals(FOLDER_FILE)
+                && name.chars().noneMatch(c -> c < 32 || "<>:\"/\\|?*".indexOf(c) >= 0);
+    }
 }
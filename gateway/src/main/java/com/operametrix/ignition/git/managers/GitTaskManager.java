@@ -0,0 +1,301 @@
+package com.operametrix.ignition.git.managers;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the Git operations that modify a project's working tree or repository on a bounded pool of
+ * gateway threads.
+ * <p>
+ * Operations of one project run one at a time, in submission order, so two Designers can no longer
+ * commit, pull or check out on the same working tree concurrently. Different projects run in
+ * parallel, up to {@link #WORKER_THREADS}. A project accepts at most
+ * {@link #MAX_QUEUED_PER_PROJECT} waiting operations and the gateway at most
+ * {@link #MAX_QUEUED_TASKS}; further submissions are rejected immediately instead of piling up
+ * RPC threads. An operation submitted from a task already running for the same project (e.g.
+ * {@code initializeProject} calling {@code setupLocalRepo}) runs inline.
+ * <p>
+ * {@link #call} blocks at most {@link #CALL_TIMEOUT_MS}; an operation still waiting in its queue by
+ * then is withdrawn and never runs. A task may not {@link #call} an operation of another project:
+ * waiting for it would hold a worker thread, and enough such tasks would deadlock the pool.
+ */
+public class GitTaskManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitTaskManager.class);
+
+    public static final int WORKER_THREADS = Integer.getInteger("ignition.git.workerThreads", 4);
+    public static final int MAX_QUEUED_PER_PROJECT = Integer.getInteger("ignition.git.maxQueuedPerProject", 16);
+    public static final int MAX_QUEUED_TASKS = Integer.getInteger("ignition.git.maxQueuedTasks", 128);
+    /** Longest time {@link #call} waits for an operation, queued and running. */
+    public static final long CALL_TIMEOUT_MS = Long.getLong("ignition.git.callTimeoutMs", 10 * 60 * 1000L);
+
+    private static final Map<String, ProjectQueue> queues = new ConcurrentHashMap<>();
+    private static final ThreadLocal<String> currentProject = new ThreadLocal<>();
+    private static ExecutorService executor;
+
+    private static final AtomicInteger queuedTasks = new AtomicInteger();
+    private static final AtomicLong submittedCount = new AtomicLong();
+    private static final AtomicLong completedCount = new AtomicLong();
+    private static final AtomicLong failedCount = new AtomicLong();
+    private static final AtomicLong rejectedCount = new AtomicLong();
+    private static final AtomicLong totalWaitMs = new AtomicLong();
+    private static final AtomicLong totalRunMs = new AtomicLong();
+    private static final AtomicLong maxWaitMs = new AtomicLong();
+
+    public static synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "git-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // The work queue only ever holds one drain per project, its size is bounded by the project count
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        queues.values().forEach(ProjectQueue::cancelAll);
+        queues.clear();
+        logger.info("Git operations: " + getMetrics());
+    }
+
+    /**
+     * Run {@code operation} in the serial queue of a project and wait for its result.
+     *
+     * @param operationName name used in logs and rejection messages, e.g. {@code "pull"}
+     * @throws RuntimeException if the project or gateway queue is full, if called from a task of
+     *                          another project, or if the operation did not complete within
+     *                          {@link #CALL_TIMEOUT_MS}
+     */
+    public static <T> T call(String projectName, String operationName, Callable<T> operation) throws Exception {
+        ExecutorService service = executor;
+        String runningProject = currentProject.get();
+        if (service == null || projectName.equals(runningProject)) {
+            return operation.call();
+        }
+        if (runningProject != null) {
+            rejectedCount.incrementAndGet();
+            throw new RuntimeException("'" + operationName + "' on project '" + projectName
+                    + "' cannot wait from an operation of project '" + runningProject + "'.");
+        }
+
+        Task<T> task = new Task<>(projectName, operationName, operation);
+        ProjectQueue queue = queues.computeIfAbsent(projectName, ProjectQueue::new);
+        queue.submit(service, task);
+        try {
+            return task.future.get(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            boolean withdrawn = queue.withdraw(task);
+            throw new RuntimeException("'" + operationName + "' on project '" + projectName + "' did not complete within "
+                    + CALL_TIMEOUT_MS + " ms, " + (withdrawn ? "it was cancelled before it started." : "it is still running."));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Queue {@code operation} in the serial queue of a project without waiting for it. Before
+     * {@link #start()} the operation runs immediately in the calling thread.
+     *
+     * @throws RuntimeException if the project or gateway queue is full
+     */
+    public static <T> CompletableFuture<T> submit(String projectName, String operationName, Callable<T> operation) {
+        ExecutorService service = executor;
+        if (service == null) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(operation.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            return future;
+        }
+
+        Task<T> task = new Task<>(projectName, operationName, operation);
+        queues.computeIfAbsent(projectName, ProjectQueue::new).submit(service, task);
+        return task.future;
+    }
+
+    /** Same as {@link #call}, for operations that only throw unchecked exceptions. */
+    public static <T> T callUnchecked(String projectName, String operationName, Callable<T> operation) {
+        try {
+            return call(projectName, operationName, operation);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Counters of the executor since startup, for logging and diagnostics. */
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("submitted", submittedCount.get());
+        metrics.put("completed", completedCount.get());
+        metrics.put("failed", failedCount.get());
+        metrics.put("rejected", rejectedCount.get());
+        metrics.put("queued", queuedTasks.get());
+        long finished = completedCount.get() + failedCount.get();
+        metrics.put("avgWaitMs", finished == 0 ? 0 : totalWaitMs.get() / finished);
+        metrics.put("maxWaitMs", maxWaitMs.get());
+        metrics.put("avgRunMs", finished == 0 ? 0 : totalRunMs.get() / finished);
+        return metrics;
+    }
+
+    /** Number of operations waiting or running for a project. */
+    public static int getQueueDepth(String projectName) {
+        ProjectQueue queue = queues.get(projectName);
+        return queue != null ? queue.depth() : 0;
+    }
+
+    private static class ProjectQueue {
+        private final String projectName;
+        private final Deque<Task<?>> tasks = new ArrayDeque<>();
+        private boolean draining;
+        private Task<?> running;
+
+        ProjectQueue(String projectName) {
+            this.projectName = projectName;
+        }
+
+        synchronized void submit(ExecutorService service, Task<?> task) {
+            if (tasks.size() >= MAX_QUEUED_PER_PROJECT) {
+                rejectedCount.incrementAndGet();
+                throw new RuntimeException("Too many Git operations pending for project '" + projectName
+                        + "' (" + tasks.size() + "), '" + task.operationName + "' was rejected. Try again later.");
+            }
+            if (queuedTasks.incrementAndGet() > MAX_QUEUED_TASKS) {
+                queuedTasks.decrementAndGet();
+                rejectedCount.incrementAndGet();
+                throw new RuntimeException("The gateway has too many pending Git operations, '"
+                        + task.operationName + "' on project '" + projectName + "' was rejected. Try again later.");
+            }
+            submittedCount.incrementAndGet();
+            tasks.addLast(task);
+            if (!draining) {
+                draining = true;
+                try {
+                    service.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // Nothing drains this queue: fail its tasks rather than leave them waiting forever
+                    draining = false;
+                    tasks.forEach(queued -> queued.future.completeExceptionally(e));
+                    queuedTasks.addAndGet(-tasks.size());
+                    rejectedCount.addAndGet(tasks.size());
+                    tasks.clear();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Remove a task that has not started yet.
+         *
+         * @return false if the task is running or already finished
+         */
+        synchronized boolean withdraw(Task<?> task) {
+            if (task == running || !tasks.remove(task)) {
+                return false;
+            }
+            queuedTasks.decrementAndGet();
+            task.future.cancel(false);
+            return true;
+        }
+
+        synchronized int depth() {
+            return tasks.size();
+        }
+
+        synchronized void cancelAll() {
+            tasks.forEach(task -> task.future.cancel(false));
+            queuedTasks.addAndGet(-tasks.size());
+            tasks.clear();
+        }
+
+        private void drain() {
+            while (true) {
+                Task<?> task;
+                synchronized (this) {
+                    task = tasks.peekFirst();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                    running = task;
+                }
+                task.run();
+                synchronized (this) {
+                    running = null;
+                    if (tasks.peekFirst() == task) {
+                        tasks.removeFirst();
+                        queuedTasks.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Task<T> {
+        private final String projectName;
+        private final String operationName;
+        private final Callable<T> operation;
+        private final long submittedAt = System.currentTimeMillis();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(String projectName, String operationName, Callable<T> operation) {
+            this.projectName = projectName;
+            this.operationName = operationName;
+            this.operation = operation;
+        }
+
+        void run() {
+            long startedAt = System.currentTimeMillis();
+            long waitMs = startedAt - submittedAt;
+            totalWaitMs.addAndGet(waitMs);
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+
+            currentProject.set(projectName);
+            try {
+                future.complete(operation.call());
+                completedCount.incrementAndGet();
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                failedCount.incrementAndGet();
+            } finally {
+                currentProject.remove();
+                long runMs = System.currentTimeMillis() - startedAt;
+                totalRunMs.addAndGet(runMs);
+                logger.debugf("'%s' on project '%s' waited %d ms and ran %d ms", operationName, projectName, waitMs, runMs);
+            }
+        }
+    }
+}
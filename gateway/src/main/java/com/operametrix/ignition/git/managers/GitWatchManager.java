@@ -0,0 +1,223 @@
+package com.operametrix.ignition.git.managers;
+
+import com.operametrix.ignition.git.records.GitProjectsConfigRecord;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import simpleorm.dataset.SQuery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.operametrix.ignition.git.GatewayHook.context;
+import static com.operametrix.ignition.git.managers.GitManager.getProjectFolderPath;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the folders of Git-registered projects and feeds every modified path to
+ * {@link GitStatusManager}, so status calls only re-examine what was touched on disk.
+ * <p>
+ * Each project folder is registered recursively (except {@code .git}); folders created later are
+ * registered as they appear. When events are lost ({@code OVERFLOW}) or a folder cannot be
+ * registered, the project falls back to a full rescan.
+ */
+public class GitWatchManager {
+    private final static LoggerEx logger = LoggerEx.newBuilder().build(GitWatchManager.class);
+
+    private static final Map<WatchKey, WatchedDirectory> keys = new ConcurrentHashMap<>();
+    private static WatchService watchService;
+    private static Thread watchThread;
+
+    /** Start the watch service and register every project that has a git configuration. */
+    public static synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            logger.warn("Unable to create the file watch service, status will use full scans.", e);
+            return;
+        }
+
+        watchThread = new Thread(GitWatchManager::processEvents, "git-project-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        List<GitProjectsConfigRecord> records = context.getPersistenceInterface()
+                .query(new SQuery<>(GitProjectsConfigRecord.META));
+        for (GitProjectsConfigRecord record : records) {
+            watchProject(record.getProjectName());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Error closing file watch service", e);
+        }
+        watchThread.interrupt();
+        keys.values().forEach(w -> GitStatusManager.setChangeTracking(w.projectName, false));
+        keys.clear();
+        watchService = null;
+        watchThread = null;
+    }
+
+    /** Start tracking the folder of a project. Safe to call for an already watched project. */
+    public static synchronized void watchProject(String projectName) {
+        if (watchService == null) {
+            return;
+        }
+        Path projectPath = getProjectFolderPath(projectName).toAbsolutePath().normalize();
+        if (!Files.isDirectory(projectPath)) {
+            return;
+        }
+
+        if (registerTree(projectName, projectPath, projectPath)) {
+            GitStatusManager.setChangeTracking(projectName, true);
+        } else {
+            unwatchProject(projectName);
+        }
+    }
+
+    public static synchronized void unwatchProject(String projectName) {
+        keys.entrySet().removeIf(e -> {
+            if (e.getValue().projectName.equals(projectName)) {
+                e.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+        GitStatusManager.setChangeTracking(projectName, false);
+    }
+
+    /**
+     * Register {@code start} and all its sub-folders.
+     *
+     * @return false if a folder could not be registered (e.g. the OS watch limit was reached)
+     */
+    private static boolean registerTree(String projectName, Path projectPath, Path start) {
+        WatchService service = watchService;
+        if (service == null) {
+            return false;
+        }
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (dir.getFileName() != null && dir.getFileName().toString().equals(".git")) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    keys.put(key, new WatchedDirectory(projectName, projectPath, dir));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return true;
+        } catch (IOException | ClosedWatchServiceException e) {
+            logger.warn("Unable to watch '" + start + "' of project '" + projectName + "', status will use full scans.", e);
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void processEvents() {
+        WatchService service = watchService;
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            WatchedDirectory watched = keys.get(key);
+            if (watched == null) {
+                key.cancel();
+                continue;
+            }
+
+            try {
+                Set<String> dirtyPaths = new HashSet<>();
+                boolean rescan = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        rescan = true;
+                        continue;
+                    }
+
+                    Path child = watched.directory.resolve(((WatchEvent<Path>) event).context());
+                    boolean isDirectory = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+                    if (event.kind() == ENTRY_MODIFY && isDirectory) {
+                        // Changes inside a folder are reported by the folder's own key
+                        continue;
+                    }
+
+                    String relativePath = watched.projectPath.relativize(child).toString()
+                            .replace(File.separatorChar, '/');
+                    if (relativePath.equals(".git") || relativePath.startsWith(".git/")) {
+                        continue;
+                    }
+                    if (child.getFileName().toString().equals(".gitignore")) {
+                        rescan = true;
+                        continue;
+                    }
+
+                    dirtyPaths.add(relativePath);
+                    if (event.kind() == ENTRY_CREATE && isDirectory) {
+                        if (!registerTree(watched.projectName, watched.projectPath, child)) {
+                            unwatchProject(watched.projectName);
+                        }
+                    }
+                }
+
+                if (rescan) {
+                    GitStatusManager.markAllDirty(watched.projectName);
+                    registerTree(watched.projectName, watched.projectPath, watched.projectPath);
+                } else if (!dirtyPaths.isEmpty()) {
+                    GitStatusManager.markDirty(watched.projectName, dirtyPaths);
+                }
+            } catch (Exception e) {
+                logger.warn("Error processing file events of project '" + watched.projectName + "'", e);
+                GitStatusManager.markAllDirty(watched.projectName);
+            }
+
+            if (!key.reset()) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private static class WatchedDirectory {
+        private final String projectName;
+        private final Path projectPath;
+        private final Path directory;
+
+        WatchedDirectory(String projectName, Path projectPath, Path directory) {
+            this.projectName = projectName;
+            this.projectPath = projectPath;
+            this.directory = directory;
+        }
+    }
+}